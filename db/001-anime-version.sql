@@ -0,0 +1,9 @@
+-- Adds the optimistic-locking version and the last-modified timestamp of an anime.
+-- Run it once against webflux_essentials before deploying:
+--   psql -h localhost -U postgres -d webflux_essentials -f db/001-anime-version.sql
+-- Existing rows start at version 0, the value AnimeVersion gives an anime without one.
+SET search_path TO anime;
+
+ALTER TABLE anime
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
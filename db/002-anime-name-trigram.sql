@@ -0,0 +1,9 @@
+-- Serves GET /anime/search: the <% word similarity operator of pg_trgm, backed by a GIN trigram index on name.
+-- Run it once against webflux_essentials before deploying, as a user allowed to create extensions:
+--   psql -h localhost -U postgres -d webflux_essentials -f db/002-anime-name-trigram.sql
+-- CONCURRENTLY keeps writes to anime going while the index builds, so the file must not run inside a transaction.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+SET search_path TO anime, public;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS anime_name_trgm_idx ON anime USING gin (name gin_trgm_ops);
@@ -0,0 +1,7 @@
+-- Serves the scheduled refresh of the anime snapshot, which reads the rows changed since its watermark by updated_at.
+-- Run it once against webflux_essentials before deploying:
+--   psql -h localhost -U postgres -d webflux_essentials -f db/003-anime-updated-at.sql
+-- CONCURRENTLY keeps writes to anime going while the index builds, so the file must not run inside a transaction.
+SET search_path TO anime;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS anime_updated_at_idx ON anime (updated_at);
@@ -0,0 +1,99 @@
+package com.luiz.webflux.benchmark;
+
+import com.luiz.webflux.domain.Anime;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Streamed anime lists as NDJSON and as Smile: the encoding on the server and the decoding on the consumer side.
+ * The payload size of each format is printed once per trial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeBinaryEncodingBenchmark {
+
+    private static final ResolvableType ANIME_TYPE = ResolvableType.forClass(Anime.class);
+
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"application/x-ndjson", "application/stream+x-jackson-smile"})
+    private String format;
+
+    private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private MediaType mediaType;
+    private Encoder<Object> encoder;
+    private Decoder<Object> decoder;
+    private List<Anime> animes;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        mediaType = MediaType.parseMediaType(format);
+        if (mediaType.getSubtype().contains("smile")) {
+            encoder = new Jackson2SmileEncoder(Jackson2ObjectMapperBuilder.smile().build());
+            decoder = new Jackson2SmileDecoder(Jackson2ObjectMapperBuilder.smile().build());
+        } else {
+            encoder = new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build());
+            decoder = new Jackson2JsonDecoder(Jackson2ObjectMapperBuilder.json().build());
+        }
+        Instant updatedAt = Instant.parse("2021-04-01T12:00:00Z");
+        animes = IntStream.rangeClosed(1, size)
+                .mapToObj(id -> Anime.builder().id(id).name("Tensei Shitara Slime Datta Ken " + id).version(3L).updatedAt(updatedAt).build())
+                .collect(Collectors.toList());
+        payload = DataBufferUtils.join(encoder.encode(Flux.fromIterable(animes), bufferFactory, ANIME_TYPE, mediaType, Collections.emptyMap()))
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .block();
+        System.out.printf("%n%s payload of %d animes: %d bytes%n", format, size, payload.length);
+    }
+
+    @Benchmark
+    public long encode() {
+        return encoder.encode(Flux.fromIterable(animes), bufferFactory, ANIME_TYPE, mediaType, Collections.emptyMap())
+                .map(buffer -> {
+                    long bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    @Benchmark
+    public long decode() {
+        Flux<DataBuffer> input = Flux.just(payload).map(bufferFactory::wrap);
+        return decoder.decode(input, ANIME_TYPE, mediaType, Collections.emptyMap())
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,84 @@
+package com.luiz.webflux.benchmark;
+
+import com.luiz.webflux.codec.AnimeJsonEncoder;
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of writing anime lists through the same Jackson encoder WebFlux uses for responses,
+ * and through the encoder that writes them from their cached bytes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeJsonEncodingBenchmark {
+
+    private static final ResolvableType ANIME_TYPE = ResolvableType.forClass(Anime.class);
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build());
+    private final AnimeJsonEncoder cachedEncoder = new AnimeJsonEncoder(Jackson2ObjectMapperBuilder.json().build(), new AnimeProperties());
+    private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private List<Anime> animes;
+
+    @Setup
+    public void setUp() {
+        animes = IntStream.rangeClosed(1, size)
+                .mapToObj(id -> Anime.builder().id(id).name("Tensei Shitara Slime Datta Ken " + id).build())
+                .collect(Collectors.toList());
+        encode(cachedEncoder, MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public long encodeJsonArray() {
+        return encode(encoder, MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public long encodeNdjson() {
+        return encode(encoder, MediaType.APPLICATION_NDJSON);
+    }
+
+    @Benchmark
+    public long encodeJsonArrayCached() {
+        return encode(cachedEncoder, MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public long encodeNdjsonCached() {
+        return encode(cachedEncoder, MediaType.APPLICATION_NDJSON);
+    }
+
+    private long encode(Encoder<? super Anime> encoder, MediaType mediaType) {
+        return encoder.encode(Flux.fromIterable(animes), bufferFactory, ANIME_TYPE, mediaType, Collections.emptyMap())
+                .map(buffer -> {
+                    long bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
@@ -0,0 +1,90 @@
+package com.luiz.webflux.benchmark;
+
+import com.luiz.webflux.cache.AnimeCache;
+import com.luiz.webflux.cache.AnimeSnapshot;
+import com.luiz.webflux.cache.SingleFlight;
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.controller.AnimeController;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.metrics.AnimeMetrics;
+import com.luiz.webflux.service.AnimeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller, service and codecs exercised through WebTestClient with the database replaced by an in-memory map
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeRoundTripBenchmark {
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private WebTestClient client;
+
+    @Setup
+    public void setUp() {
+        AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getCache().setEnabled(cacheEnabled);
+        InMemoryAnimeRepository animeRepository = InMemoryAnimeRepository.withAnimes(100);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AnimeService animeService = new AnimeService(animeRepository, animeProperties, new AnimeCache(animeProperties),
+                new AnimeSnapshot(animeRepository, animeProperties), new SingleFlight(animeProperties, meterRegistry, null),
+                new AnimeMetrics(meterRegistry), InMemoryAnimeRepository.transactions());
+        client = WebTestClient.bindToController(new AnimeController(animeService)).build();
+    }
+
+    @Benchmark
+    public Anime findById() {
+        return client.get()
+                .uri("/anime/{id}", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Anime.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public byte[] findByIdNotModified() {
+        return client.get()
+                .uri("/anime/{id}", 1)
+                .ifNoneMatch("\"0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public List<Anime> listAll() {
+        return client.get()
+                .uri("/anime")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Anime.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public byte[] findByIdNotFound() {
+        return client.get()
+                .uri("/anime/{id}", 0)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+}
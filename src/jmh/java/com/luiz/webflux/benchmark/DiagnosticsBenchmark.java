@@ -0,0 +1,90 @@
+package com.luiz.webflux.benchmark;
+
+import com.luiz.webflux.cache.AnimeCache;
+import com.luiz.webflux.cache.AnimeSnapshot;
+import com.luiz.webflux.cache.SingleFlight;
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.config.DiagnosticsEnvironmentPostProcessor;
+import com.luiz.webflux.controller.AnimeController;
+import com.luiz.webflux.metrics.AnimeMetrics;
+import com.luiz.webflux.service.AnimeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.config.DelegatingWebFluxConfiguration;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.tools.agent.ReactorDebugAgent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests served by Netty with and without diagnostics, BlockHound only checks the event loop threads a server runs on.
+ * Every run forks its own JVM, neither of them can be uninstalled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// the whole Netty stack has to be compiled before the throughput settles
+@Warmup(iterations = 12, time = 5)
+@Measurement(iterations = 5, time = 4)
+@Fork(1)
+public class DiagnosticsBenchmark {
+
+    @Param({"false", "true"})
+    private boolean diagnostics;
+
+    private AnnotationConfigApplicationContext context;
+    private DisposableServer server;
+    private HttpClient client;
+
+    @Setup
+    public void setUp() {
+        if (diagnostics) {
+            DiagnosticsEnvironmentPostProcessor.install(getClass().getClassLoader());
+            // the application classes are loaded by now, the application installs it before they are
+            ReactorDebugAgent.processExistingClasses();
+        }
+        AnimeProperties animeProperties = new AnimeProperties();
+        InMemoryAnimeRepository animeRepository = InMemoryAnimeRepository.withAnimes(100);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AnimeService animeService = new AnimeService(animeRepository, animeProperties, new AnimeCache(animeProperties),
+                new AnimeSnapshot(animeRepository, animeProperties), new SingleFlight(animeProperties, meterRegistry, null),
+                new AnimeMetrics(meterRegistry), InMemoryAnimeRepository.transactions());
+        context = new AnnotationConfigApplicationContext();
+        context.register(DelegatingWebFluxConfiguration.class);
+        context.registerBean(AnimeController.class, () -> new AnimeController(animeService));
+        context.refresh();
+        server = HttpServer.create()
+                .port(0)
+                .handle(new ReactorHttpHandlerAdapter(WebHttpHandlerBuilder.applicationContext(context).build()))
+                .bindNow();
+        client = HttpClient.create().port(server.port());
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.disposeNow();
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] findById() {
+        return get("/anime/1");
+    }
+
+    @Benchmark
+    public byte[] listAll() {
+        return get("/anime");
+    }
+
+    private byte[] get(String uri) {
+        return client.get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.asByteArray())
+                .block();
+    }
+}
@@ -0,0 +1,112 @@
+package com.luiz.webflux.benchmark;
+
+import com.luiz.webflux.exception.CustomAttributes;
+import com.luiz.webflux.exception.GlobalExceptionHandler;
+import com.luiz.webflux.exception.NotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.autoconfigure.web.ResourceProperties;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full error path of GlobalExceptionHandler, from the not-found error AnimeService raises to the written JSON body
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private final ServerCodecConfigurer codecConfigurer = ServerCodecConfigurer.create();
+    private GlobalExceptionHandler handler;
+
+    @Setup
+    @SuppressWarnings("deprecation")
+    public void setUp() {
+        handler = new GlobalExceptionHandler(new CustomAttributes(), new ResourceProperties(),
+                new StaticApplicationContext(), codecConfigurer);
+        handler.setViewResolvers(Collections.emptyList());
+    }
+
+    @Benchmark
+    public Object notFound() {
+        return handle("/anime/0", new NotFoundException("Anime not found", false));
+    }
+
+    @Benchmark
+    public Object notFoundWithTrace() {
+        return handle("/anime/0?trace=true", new NotFoundException("Anime not found", true));
+    }
+
+    /**
+     * The exchange shares the codecs like the server does, MockServerWebExchange creates them for every exchange
+     */
+    private Object handle(String uri, Throwable throwable) {
+        CountingResponse response = new CountingResponse();
+        ServerWebExchange exchange = new DefaultServerWebExchange(MockServerHttpRequest.get(uri).build(), response,
+                new DefaultWebSessionManager(), codecConfigurer, new AcceptHeaderLocaleContextResolver());
+        handler.handle(exchange, throwable).block();
+        return response.written;
+    }
+
+    /**
+     * Counts and releases the body, MockServerHttpResponse fills in the stack of an exception whenever it is created
+     */
+    private static final class CountingResponse extends AbstractServerHttpResponse {
+
+        private int written;
+
+        private CountingResponse() {
+            super(DefaultDataBufferFactory.sharedInstance);
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body)
+                    .doOnNext(buffer -> {
+                        written += buffer.readableByteCount();
+                        DataBufferUtils.release(buffer);
+                    })
+                    .then();
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return Flux.from(body).concatMap(this::writeWithInternal).then();
+        }
+
+        @Override
+        protected void applyStatusCode() {
+        }
+
+        @Override
+        protected void applyHeaders() {
+        }
+
+        @Override
+        protected void applyCookies() {
+        }
+
+        @Override
+        public <T> T getNativeResponse() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.luiz.webflux.benchmark;
+
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.domain.AnimeVersion;
+import com.luiz.webflux.repository.AnimeRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.transaction.reactive.TransactionCallback;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for the R2DBC repository so benchmarks measure the web and service layers without a database
+ */
+public class InMemoryAnimeRepository implements AnimeRepository {
+
+    private final ConcurrentNavigableMap<Integer, Anime> animes = new ConcurrentSkipListMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public static InMemoryAnimeRepository withAnimes(int count) {
+        InMemoryAnimeRepository repository = new InMemoryAnimeRepository();
+        for (int i = 0; i < count; i++) {
+            repository.store(Anime.builder().name("Anime " + i).build());
+        }
+        return repository;
+    }
+
+    /**
+     * Runs the service transactions as they are, there is nothing to commit in memory
+     */
+    public static TransactionalOperator transactions() {
+        return new TransactionalOperator() {
+            @Override
+            public <T> Mono<T> transactional(Mono<T> mono) {
+                return mono;
+            }
+
+            @Override
+            public <T> Flux<T> execute(TransactionCallback<T> action) {
+                return Flux.from(action.doInTransaction(null));
+            }
+        };
+    }
+
+    private Anime store(Anime anime) {
+        Anime stored = anime.getId() == null
+                ? anime.withId(sequence.incrementAndGet()).withVersion(0L).withUpdatedAt(Instant.now())
+                : anime;
+        animes.put(stored.getId(), stored);
+        return stored;
+    }
+
+    @Override
+    public Mono<Anime> findById(int id) {
+        return Mono.justOrEmpty(animes.get(id));
+    }
+
+    @Override
+    public Flux<Anime> findPage(int after, int limit) {
+        return Flux.fromIterable(animes.tailMap(after, false).values()).take(limit);
+    }
+
+    @Override
+    public Flux<Anime> search(String query, int limit) {
+        String lowerCaseQuery = query.toLowerCase();
+        return Flux.fromIterable(animes.values())
+                .filter(anime -> anime.getName().toLowerCase().contains(lowerCaseQuery))
+                .take(limit);
+    }
+
+    @Override
+    public Flux<Anime> findUpdatedSince(Instant since) {
+        return Flux.fromIterable(animes.values()).filter(anime -> anime.getUpdatedAt().isAfter(since));
+    }
+
+    @Override
+    public Mono<AnimeVersion> findVersionById(int id) {
+        return findById(id).map(AnimeVersion::of);
+    }
+
+    @Override
+    public Mono<AnimeListVersion> findListVersion() {
+        return Mono.fromSupplier(() -> new AnimeListVersion(animes.size(), animes.isEmpty() ? 0 : animes.lastKey(),
+                animes.values().stream().mapToLong(Anime::getVersion).sum()));
+    }
+
+    @Override
+    public Mono<Integer> updateName(int id, String name) {
+        return Mono.fromSupplier(() -> animes.computeIfPresent(id, (key, anime) -> updated(anime, name)) == null ? 0 : 1);
+    }
+
+    @Override
+    public Mono<Integer> updateNameIfVersion(int id, String name, long version) {
+        return Mono.fromSupplier(() -> {
+            boolean[] matched = new boolean[1];
+            animes.computeIfPresent(id, (key, anime) -> {
+                matched[0] = anime.getVersion() == version;
+                return matched[0] ? updated(anime, name) : anime;
+            });
+            return matched[0] ? 1 : 0;
+        });
+    }
+
+    @Override
+    public Mono<Integer> deleteAnime(int id) {
+        return Mono.fromSupplier(() -> animes.remove(id) == null ? 0 : 1);
+    }
+
+    @Override
+    public Mono<Integer> deleteAnimeIfVersion(int id, long version) {
+        return Mono.fromSupplier(() -> {
+            boolean[] matched = new boolean[1];
+            animes.computeIfPresent(id, (key, anime) -> {
+                matched[0] = anime.getVersion() == version;
+                return matched[0] ? null : anime;
+            });
+            return matched[0] ? 1 : 0;
+        });
+    }
+
+    private Anime updated(Anime anime, String name) {
+        return anime.withName(name).withVersion(anime.getVersion() + 1).withUpdatedAt(Instant.now());
+    }
+
+    @Override
+    public Flux<Anime> streamAll(int after, int fetchSize) {
+        return Flux.fromIterable(animes.tailMap(after, false).values());
+    }
+
+    @Override
+    public Flux<Anime> insertAll(List<Anime> animes) {
+        return Flux.fromIterable(animes).map(this::store);
+    }
+
+    @Override
+    public <S extends Anime> Mono<S> save(S entity) {
+        return Mono.fromSupplier(() -> {
+            store(entity);
+            return entity;
+        });
+    }
+
+    @Override
+    public <S extends Anime> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).flatMap(this::save);
+    }
+
+    @Override
+    public <S extends Anime> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).flatMap(this::save);
+    }
+
+    @Override
+    public Mono<Anime> findById(Integer id) {
+        return findById(id.intValue());
+    }
+
+    @Override
+    public Mono<Anime> findById(Publisher<Integer> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Integer id) {
+        return Mono.fromSupplier(() -> animes.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Integer> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Anime> findAll() {
+        return Flux.fromIterable(animes.values());
+    }
+
+    @Override
+    public Flux<Anime> findAllById(Iterable<Integer> ids) {
+        return Flux.fromIterable(ids).flatMap(this::findById);
+    }
+
+    @Override
+    public Flux<Anime> findAllById(Publisher<Integer> idStream) {
+        return Flux.from(idStream).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) animes.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Integer id) {
+        return Mono.fromRunnable(() -> animes.remove(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Integer> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(Anime entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Anime> entities) {
+        return Flux.fromIterable(entities).flatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Anime> entityStream) {
+        return Flux.from(entityStream).flatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(animes::clear);
+    }
+}
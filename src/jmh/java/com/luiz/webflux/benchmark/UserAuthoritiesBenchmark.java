@@ -0,0 +1,66 @@
+package com.luiz.webflux.benchmark;
+
+import com.luiz.webflux.domain.Role;
+import com.luiz.webflux.domain.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Authorities are read several times per request by the hasRole matchers and @PreAuthorize
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserAuthoritiesBenchmark {
+
+    private String authorities = "ROLE_USER,ROLE_ADMIN";
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = User.builder()
+                .id(1)
+                .username("luiz")
+                .authorities(authorities)
+                .build();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public boolean hasRoleThroughAuthorities() {
+        for (GrantedAuthority authority : user.getAuthorities()) {
+            if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean hasRole() {
+        return user.hasRole(Role.ADMIN);
+    }
+
+    /**
+     * What getAuthorities() did before authorities were interned, kept as the baseline
+     */
+    @Benchmark
+    public Collection<? extends GrantedAuthority> splitOnEveryCall() {
+        return Arrays.stream(authorities.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,98 @@
+package com.luiz.webflux.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.r2dbc.url=" + EmbeddedDatabaseConfig.H2_URL,
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "rate-limit.enabled=false",
+        "logging.level.io.r2dbc.postgresql.QUERY=INFO",
+        "logging.level.io.r2dbc.postgresql.PARAM=INFO",
+        "logging.level.org.springframework.data.r2dbc=INFO"
+})
+@Import(EmbeddedDatabaseConfig.class)
+@Slf4j
+class AnimeLoadTest {
+
+    private static final String PASSWORD = "devdojo";
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Test
+    @DisplayName("anime endpoints keep their throughput and tail latency under load")
+    public void animeEndpoints_DoNotRegress_WhenUnderLoad() throws IOException {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        LoadContext context = new LoadContext(client("david"), client("luiz"), settings.getSeededAnimes());
+        seed(context, settings.getSeededAnimes());
+
+        LoadGenerator generator = new LoadGenerator();
+        generator.run(context, settings.getMix(), settings.getConcurrency(), settings.getWarmup());
+        LoadReport report = generator.run(context, settings.getMix(), settings.getConcurrency(), settings.getDuration());
+        log.info("Load test results, {} workers for {}s\n{}", report.getConcurrency(), report.getDurationSeconds(), report.toTable());
+
+        Path result = Paths.get("target", "load-test", "result.json");
+        Files.createDirectories(result.getParent());
+        objectMapper.writeValue(result.toFile(), report);
+
+        report.getEndpoints().forEach((endpoint, stats) -> Assertions.assertTrue(stats.getErrors() <= stats.getRequests() / 100,
+                () -> endpoint + " failed " + stats.getErrors() + " of " + stats.getRequests() + " requests"));
+
+        Path baseline = settings.getBaseline();
+        if (settings.isUpdateBaseline()) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            objectMapper.writeValue(baseline.toFile(), report);
+            log.info("Stored this run as the baseline in {}", baseline);
+            return;
+        }
+        // a first run has nothing to regress from, reported as skipped rather than passed
+        Assumptions.assumeTrue(Files.exists(baseline),
+                () -> "No baseline in " + baseline + ", record one with -Dload.update-baseline=true");
+        List<String> regressions = report.regressionsAgainst(objectMapper.readValue(baseline.toFile(), LoadReport.class),
+                settings.getThreshold());
+        Assertions.assertTrue(regressions.isEmpty(), () -> "Regressions against " + baseline + ":\n" + String.join("\n", regressions));
+    }
+
+    private WebClient client(String username) {
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .defaultHeaders(headers -> headers.setBasicAuth(username, PASSWORD))
+                .build();
+    }
+
+    private void seed(LoadContext context, int animes) {
+        List<Anime> batch = IntStream.range(0, animes)
+                .mapToObj(i -> Anime.builder().name(context.randomName()).build())
+                .collect(Collectors.toList());
+        context.getAdmin().post().uri("/anime/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(batch)
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+    }
+}
@@ -0,0 +1,116 @@
+package com.luiz.webflux.load;
+
+import com.luiz.webflux.domain.Anime;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Every AnimeController endpoint the load generator can call, each issued with the least privileged user allowed
+ */
+public enum Endpoint {
+    LIST_ALL {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getAdmin().get().uri("/anime")
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    LIST_PAGE {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getAdmin().get().uri("/anime?after={after}&limit=20", context.randomSeededId())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    /**
+     * Postgres only, left out of the default mix: the in-process H2 database of the load run has no pg_trgm
+     */
+    SEARCH {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getUser().get().uri("/anime/search?q={q}&limit=20", context.randomQuery())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    STREAM {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getAdmin().get().uri("/anime")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    FIND_BY_ID {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getUser().get().uri("/anime/{id}", context.randomSeededId())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    SAVE {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return save(context)
+                    .doOnNext(anime -> context.getCreated().add(anime.getId()));
+        }
+    },
+    SAVE_BATCH {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getAdmin().post().uri("/anime/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(batch(context))
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    INGEST {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getAdmin().post().uri("/anime/batch")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(Flux.fromIterable(batch(context)), Anime.class)
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    UPDATE {
+        @Override
+        Mono<?> call(LoadContext context) {
+            return context.getAdmin().put().uri("/anime/{id}", context.randomSeededId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(Anime.builder().name(context.randomName()).build())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    DELETE {
+        @Override
+        Mono<?> call(LoadContext context) {
+            // only animes created during the run are deleted, so reads of the seeded ones never miss
+            return Mono.justOrEmpty(context.getCreated().poll())
+                    .switchIfEmpty(save(context).map(Anime::getId))
+                    .flatMap(id -> context.getAdmin().delete().uri("/anime/{id}", id)
+                            .retrieve().toBodilessEntity());
+        }
+    };
+
+    private static final int BATCH_SIZE = 10;
+
+    abstract Mono<?> call(LoadContext context);
+
+    private static Mono<Anime> save(LoadContext context) {
+        return context.getAdmin().post().uri("/anime")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Anime.builder().name(context.randomName()).build())
+                .retrieve().bodyToMono(Anime.class);
+    }
+
+    private static List<Anime> batch(LoadContext context) {
+        return IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> Anime.builder().name(context.randomName()).build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,37 @@
+package com.luiz.webflux.load;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Clients and shared state used by the endpoints while a load run is in progress
+ */
+@Getter
+@RequiredArgsConstructor
+public class LoadContext {
+
+    private final WebClient user;
+    private final WebClient admin;
+    private final int seededAnimes;
+    private final Queue<Integer> created = new ConcurrentLinkedQueue<>();
+
+    public int randomSeededId() {
+        return ThreadLocalRandom.current().nextInt(1, seededAnimes + 1);
+    }
+
+    public String randomName() {
+        return "Load test anime " + ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+
+    /**
+     * Part of a random name, as a user would type it
+     */
+    public String randomQuery() {
+        return "anime " + ThreadLocalRandom.current().nextInt(1_000);
+    }
+}
@@ -0,0 +1,72 @@
+package com.luiz.webflux.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator: concurrency workers each call a weighted random endpoint as soon as the previous call ends
+ */
+public class LoadGenerator {
+
+    public LoadReport run(LoadContext context, Map<Endpoint, Integer> mix, int concurrency, Duration duration) {
+        Endpoint[] wheel = wheel(mix);
+        Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : mix.keySet()) {
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        Flux.range(0, concurrency)
+                .flatMap(worker -> Mono.defer(() -> call(context, wheel, latencies, errors))
+                        .repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LoadReport report = new LoadReport();
+        report.setConcurrency(concurrency);
+        report.setDurationSeconds(seconds);
+        latencies.forEach((endpoint, histogram) -> report.getEndpoints().put(endpoint, new LoadReport.EndpointStats(
+                histogram.getTotalCount(),
+                errors.get(endpoint).sum(),
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0)));
+        return report;
+    }
+
+    private Mono<Void> call(LoadContext context, Endpoint[] wheel, Map<Endpoint, Histogram> latencies, Map<Endpoint, LongAdder> errors) {
+        Endpoint endpoint = wheel[ThreadLocalRandom.current().nextInt(wheel.length)];
+        long start = System.nanoTime();
+        return endpoint.call(context)
+                .doOnSuccess(response -> latencies.get(endpoint).recordValue((System.nanoTime() - start) / 1_000))
+                .onErrorResume(error -> {
+                    errors.get(endpoint).increment();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Endpoint[] wheel(Map<Endpoint, Integer> mix) {
+        List<Endpoint> wheel = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(endpoint);
+            }
+        });
+        return wheel.toArray(new Endpoint[0]);
+    }
+}
@@ -0,0 +1,63 @@
+package com.luiz.webflux.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoadReport {
+
+    private int concurrency;
+    private double durationSeconds;
+    private Map<Endpoint, EndpointStats> endpoints = new TreeMap<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class EndpointStats {
+        private long requests;
+        private long errors;
+        private double throughput;
+        private double p50Millis;
+        private double p99Millis;
+        private double p999Millis;
+    }
+
+    /**
+     * Describes every endpoint whose throughput dropped or whose p99 latency grew more than threshold against the baseline
+     */
+    public List<String> regressionsAgainst(LoadReport baseline, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        endpoints.forEach((endpoint, stats) -> {
+            EndpointStats expected = baseline.getEndpoints().get(endpoint);
+            if (expected == null) {
+                return;
+            }
+            if (stats.getThroughput() < expected.getThroughput() * (1 - threshold)) {
+                regressions.add(String.format("%s throughput %.1f req/s, baseline %.1f req/s",
+                        endpoint, stats.getThroughput(), expected.getThroughput()));
+            }
+            if (stats.getP99Millis() > expected.getP99Millis() * (1 + threshold)) {
+                regressions.add(String.format("%s p99 %.2f ms, baseline %.2f ms",
+                        endpoint, stats.getP99Millis(), expected.getP99Millis()));
+            }
+        });
+        return regressions;
+    }
+
+    public String toTable() {
+        StringBuilder table = new StringBuilder(String.format("%-12s %9s %7s %10s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        endpoints.forEach((endpoint, stats) -> table.append(String.format("%-12s %9d %7d %10.1f %9.2f %9.2f %9.2f%n",
+                endpoint, stats.getRequests(), stats.getErrors(), stats.getThroughput(),
+                stats.getP50Millis(), stats.getP99Millis(), stats.getP999Millis())));
+        return table.toString();
+    }
+}
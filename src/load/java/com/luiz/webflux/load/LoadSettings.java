@@ -0,0 +1,55 @@
+package com.luiz.webflux.load;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load run settings, read from system properties so they can be changed from the Maven command line
+ */
+@Data
+public class LoadSettings {
+
+    private static final String DEFAULT_MIX = "FIND_BY_ID=50,LIST_PAGE=15,LIST_ALL=5,STREAM=5,SAVE=8,SAVE_BATCH=3,INGEST=2,UPDATE=7,DELETE=5";
+
+    private int concurrency;
+    private Duration warmup;
+    private Duration duration;
+    private Map<Endpoint, Integer> mix;
+    private int seededAnimes;
+    /**
+     * Accepted relative drop in throughput or rise in p99 latency before the run fails
+     */
+    private double threshold;
+    /**
+     * Only comparable with runs on the same machine, so it lives under target unless load.baseline points elsewhere
+     */
+    private Path baseline;
+    private boolean updateBaseline;
+
+    public static LoadSettings fromSystemProperties() {
+        LoadSettings settings = new LoadSettings();
+        settings.setConcurrency(Integer.getInteger("load.concurrency", 32));
+        settings.setWarmup(Duration.parse(System.getProperty("load.warmup", "PT10S")));
+        settings.setDuration(Duration.parse(System.getProperty("load.duration", "PT30S")));
+        settings.setMix(parseMix(System.getProperty("load.mix", DEFAULT_MIX)));
+        settings.setSeededAnimes(Integer.getInteger("load.seeded-animes", 1_000));
+        settings.setThreshold(Double.parseDouble(System.getProperty("load.threshold", "0.2")));
+        settings.setBaseline(Paths.get(System.getProperty("load.baseline", "target/load-test/baseline.json")));
+        settings.setUpdateBaseline(Boolean.getBoolean("load.update-baseline"));
+        return settings;
+    }
+
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split("=");
+            weights.put(Endpoint.valueOf(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+}
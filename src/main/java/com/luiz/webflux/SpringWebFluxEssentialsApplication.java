@@ -2,23 +2,25 @@ package com.luiz.webflux;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
-import reactor.blockhound.BlockHound;
+import reactor.core.scheduler.Schedulers;
 
-@SpringBootApplication
+@SpringBootApplication(proxyBeanMethods = false)
+@ConfigurationPropertiesScan
 public class SpringWebFluxEssentialsApplication {
 
-    static {
-        BlockHound.install(
-                builder -> builder.allowBlockingCallsInside("java.io.InputStream", "readNBytes")
-                        .allowBlockingCallsInside("java.io.InputStream", "readNBytes")
-                        .allowBlockingCallsInside("java.io.FilterInputStream", "read")
-        );
-    }
+    private static final int STARTUP_STEPS = 10_000;
 
     public static void main(String[] args) {
 //        System.out.println(PasswordEncoderFactories.createDelegatingPasswordEncoder().encode("devdojo"));
-        SpringApplication.run(SpringWebFluxEssentialsApplication.class, args);
+        // before anything creates a scheduler, executors created earlier are not instrumented
+        Schedulers.enableMetrics();
+        SpringApplication application = new SpringApplication(SpringWebFluxEssentialsApplication.class);
+        // for the startup report, a full buffer only stops recording
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 
 }
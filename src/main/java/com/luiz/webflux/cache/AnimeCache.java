@@ -0,0 +1,89 @@
+package com.luiz.webflux.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeListVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of animes by id, and of the version of the whole list.
+ * Concurrent misses for the same id share the same future, so only one of them reaches the database.
+ */
+@Component
+public class AnimeCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final AsyncCache<Integer, Anime> cache;
+    private final AsyncCache<Boolean, AnimeListVersion> listVersion;
+
+    public AnimeCache(AnimeProperties animeProperties) {
+        AnimeProperties.Cache properties = animeProperties.getCache();
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        this.listVersion = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .buildAsync();
+    }
+
+    public Mono<Anime> get(int id, Supplier<Mono<Anime>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Caches.get(cache, id, loader);
+    }
+
+    /**
+     * The cached anime, without loading it when it is missing or still loading
+     */
+    public Mono<Anime> getIfPresent(int id) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.fromSupplier(() -> {
+            CompletableFuture<Anime> cached = cache.getIfPresent(id);
+            return cached != null && cached.isDone() && !cached.isCompletedExceptionally() ? cached.join() : null;
+        });
+    }
+
+    public void invalidate(int id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Only writes on this instance invalidate it, a write on another instance shows once the entry expires
+     */
+    public Mono<AnimeListVersion> getListVersion(Supplier<Mono<AnimeListVersion>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Caches.get(listVersion, Boolean.TRUE, loader);
+    }
+
+    public void invalidateListVersion() {
+        listVersion.synchronous().invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "anime");
+    }
+}
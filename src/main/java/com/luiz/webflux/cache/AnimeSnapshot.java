@@ -0,0 +1,284 @@
+package com.luiz.webflux.cache;
+
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.domain.AnimeVersion;
+import com.luiz.webflux.repository.AnimeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Optional copy of the whole catalog that serves reads instead of the database, until it is loaded every read
+ * goes to the loader. Every change builds a new catalog and swaps it in, so readers never see a half-applied one.
+ * Writes of this instance are applied as they commit, without a query. The scheduled refresh finds the rows changed
+ * elsewhere by updated_at, the overlap covers transactions that commit after a later timestamp.
+ * A delete leaves no updated_at behind, so the scheduled refresh also compares the list version with the database
+ * and reloads the catalog when they differ.
+ */
+@Slf4j
+@Component
+public class AnimeSnapshot implements SmartLifecycle {
+
+    private static final Comparator<Anime> BY_ID = Comparator.comparing(Anime::getId);
+
+    private final AnimeRepository animeRepository;
+    private final AnimeProperties.Snapshot properties;
+    private final int fetchSize;
+    private final AtomicReference<Catalog> catalog = new AtomicReference<>();
+    private Scheduler scheduler;
+    private Disposable refreshes;
+    private volatile boolean running;
+
+    public AnimeSnapshot(AnimeRepository animeRepository, AnimeProperties animeProperties) {
+        this.animeRepository = animeRepository;
+        this.properties = animeProperties.getSnapshot();
+        this.fetchSize = animeProperties.getPagination().getStreamFetchSize();
+    }
+
+    public Flux<Anime> findAll(Supplier<Flux<Anime>> loader) {
+        return Flux.defer(() -> {
+            Catalog current = catalog.get();
+            return current == null ? loader.get() : Flux.fromArray(current.animes);
+        });
+    }
+
+    public Mono<Anime> findById(int id, Supplier<Mono<Anime>> loader) {
+        return Mono.defer(() -> {
+            Catalog current = catalog.get();
+            return current == null ? loader.get() : Mono.justOrEmpty(current.find(id));
+        });
+    }
+
+    public Mono<AnimeVersion> findVersion(int id, Supplier<Mono<AnimeVersion>> loader) {
+        return Mono.defer(() -> {
+            Catalog current = catalog.get();
+            return current == null ? loader.get() : Mono.justOrEmpty(current.find(id)).map(AnimeVersion::of);
+        });
+    }
+
+    public Mono<AnimeListVersion> findListVersion(Supplier<Mono<AnimeListVersion>> loader) {
+        return Mono.defer(() -> {
+            Catalog current = catalog.get();
+            return current == null ? loader.get() : Mono.just(current.version);
+        });
+    }
+
+    /**
+     * Applies animes this instance has just saved, nothing to do until the catalog is loaded.
+     * Never fails: the write is already committed and the scheduled refresh applies what was missed
+     */
+    public Mono<Void> apply(List<Anime> saved) {
+        return update(latest -> latest.merge(saved));
+    }
+
+    /**
+     * Applies an update of the name this instance has just committed. Its version is one past the version
+     * the update was conditional on, otherwise one past the version in the catalog, and the scheduled refresh
+     * brings the row's updated_at
+     */
+    public Mono<Void> applyUpdate(Anime updated) {
+        return update(latest -> latest.updated(updated));
+    }
+
+    public Mono<Void> remove(int id) {
+        return update(latest -> latest.without(id));
+    }
+
+    /**
+     * Applies the rows changed since the watermark, nothing to do until the catalog is loaded
+     */
+    Mono<Void> refresh() {
+        return Mono.defer(() -> {
+            Catalog current = catalog.get();
+            if (current == null) {
+                return Mono.empty();
+            }
+            return animeRepository.findUpdatedSince(current.watermark.minus(properties.getWatermarkOverlap()))
+                    .collectList()
+                    .filter(changes -> !changes.isEmpty())
+                    .doOnNext(changes -> catalog.updateAndGet(latest -> latest.merge(changes)))
+                    .then();
+        });
+    }
+
+    /**
+     * What the scheduled refresh runs: loads the catalog when it is missing, otherwise refreshes it
+     * and reloads it when it still does not match the database
+     */
+    Mono<Void> synchronize() {
+        if (catalog.get() == null) {
+            return reload();
+        }
+        // a write between the refresh and the version query also tells them apart, which costs a reload but never leaves the catalog stale
+        return refresh()
+                .then(animeRepository.findListVersion())
+                .filter(version -> !version.equals(catalog.get().version))
+                .flatMap(version -> reload());
+    }
+
+    private Mono<Void> update(UnaryOperator<Catalog> change) {
+        return Mono.<Void>fromRunnable(() -> catalog.updateAndGet(latest -> latest == null ? null : change.apply(latest)))
+                .onErrorResume(error -> {
+                    log.warn("Anime snapshot not updated, the scheduled refresh will: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> reload() {
+        long start = System.nanoTime();
+        return animeRepository.streamAll(0, fetchSize)
+                .collectList()
+                .map(Catalog::of)
+                .doOnNext(loaded -> {
+                    catalog.set(loaded);
+                    log.info("Anime snapshot loaded {} animes in {} ms", loaded.animes.length, (System.nanoTime() - start) / 1_000_000);
+                })
+                .then();
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled()) {
+            try {
+                reload().block(properties.getLoadTimeout());
+            } catch (RuntimeException error) {
+                log.warn("Anime snapshot not loaded, reads go to the database until a refresh loads it: {}", error.getMessage());
+            }
+            scheduler = Schedulers.newSingle("anime-snapshot");
+            refreshes = Flux.interval(properties.getRefreshInterval(), properties.getRefreshInterval(), scheduler)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> synchronize().onErrorResume(error -> {
+                        log.warn("Anime snapshot refresh failed: {}", error.getMessage());
+                        return Mono.empty();
+                    }))
+                    .subscribe();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (refreshes != null) {
+            refreshes.dispose();
+            scheduler.dispose();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * After the connection pools are warm and before the web server starts listening
+     */
+    @Override
+    public int getPhase() {
+        return 1;
+    }
+
+    /**
+     * A saved anime has no version or updated_at until the refresh reads it back, like the column defaults
+     */
+    private static long versionOf(Anime anime) {
+        return anime.getVersion() == null ? 0 : anime.getVersion();
+    }
+
+    /**
+     * Animes sorted by id, with the ids in a separate array for the binary search
+     */
+    private static final class Catalog {
+
+        private final Anime[] animes;
+        private final int[] ids;
+        private final Instant watermark;
+        private final AnimeListVersion version;
+
+        private Catalog(Anime[] animes) {
+            this.animes = animes;
+            this.ids = new int[animes.length];
+            Instant latest = Instant.EPOCH;
+            long versionSum = 0;
+            for (int i = 0; i < animes.length; i++) {
+                ids[i] = animes[i].getId();
+                versionSum += versionOf(animes[i]);
+                if (animes[i].getUpdatedAt() != null && animes[i].getUpdatedAt().isAfter(latest)) {
+                    latest = animes[i].getUpdatedAt();
+                }
+            }
+            this.watermark = latest;
+            this.version = new AnimeListVersion(animes.length, animes.length == 0 ? 0 : ids[animes.length - 1], versionSum);
+        }
+
+        static Catalog of(List<Anime> animes) {
+            Anime[] sorted = animes.toArray(new Anime[0]);
+            Arrays.sort(sorted, BY_ID);
+            return new Catalog(sorted);
+        }
+
+        Anime find(int id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index < 0 ? null : animes[index];
+        }
+
+        /**
+         * A row read before a concurrent update can arrive after it, so an anime never goes back to an older version
+         */
+        Catalog merge(List<Anime> changes) {
+            List<Anime> sortedChanges = new ArrayList<>(changes);
+            sortedChanges.sort(BY_ID);
+            List<Anime> merged = new ArrayList<>(animes.length + sortedChanges.size());
+            int i = 0;
+            int j = 0;
+            while (i < animes.length || j < sortedChanges.size()) {
+                if (j == sortedChanges.size() || (i < animes.length && ids[i] < sortedChanges.get(j).getId())) {
+                    merged.add(animes[i++]);
+                } else if (i == animes.length || ids[i] > sortedChanges.get(j).getId()) {
+                    merged.add(sortedChanges.get(j++));
+                } else {
+                    Anime change = sortedChanges.get(j++);
+                    merged.add(versionOf(change) >= versionOf(animes[i]) ? change : animes[i]);
+                    i++;
+                }
+            }
+            return new Catalog(merged.toArray(new Anime[0]));
+        }
+
+        Catalog updated(Anime update) {
+            Anime current = find(update.getId());
+            if (current == null) {
+                return this;
+            }
+            long version = (update.getVersion() == null ? versionOf(current) : update.getVersion()) + 1;
+            return merge(List.of(current.withName(update.getName()).withVersion(version).withUpdatedAt(null)));
+        }
+
+        Catalog without(int id) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0) {
+                return this;
+            }
+            Anime[] remaining = new Anime[animes.length - 1];
+            System.arraycopy(animes, 0, remaining, 0, index);
+            System.arraycopy(animes, index + 1, remaining, index, animes.length - index - 1);
+            return new Catalog(remaining);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.luiz.webflux.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public final class Caches {
+
+    private Caches() {
+    }
+
+    /**
+     * Read-through lookup where concurrent misses for the same key share one load.
+     * The loader is subscribed after the future is published rather than inside the map compute:
+     * a driver that completes synchronously would otherwise run other cache writes while the bin is still locked.
+     * The load does not see the caller's Reactor context.
+     */
+    public static <K, V> Mono<V> get(AsyncCache<K, V> cache, K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> cached = cache.get(key, (k, executor) -> future);
+            if (cached != future) {
+                return Mono.fromFuture(cached);
+            }
+            // an empty or failed load completes the future with null or an exception, which Caffeine does not keep
+            loader.get().subscribe(future::complete, future::completeExceptionally, () -> future.complete(null));
+            return Mono.fromFuture(future);
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.luiz.webflux.cache;
+
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.routing.DatabaseRoute;
+import com.luiz.webflux.routing.RoutingConnectionFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent identical single-row reads share one upstream subscription: the first caller starts the load, the others
+ * join it and still receive its result. A caller that cancels only leaves, the load is cancelled once
+ * every caller left. Nothing is kept once the load terminates, so this is not a cache and needs no TTL.
+ * The database route of each caller is decided before it joins and is part of the flight key, so callers reading
+ * from a replica never join a load from the primary or the reverse, and a user who just wrote still reads the primary.
+ * The load then runs with that route only, detached from the context of the caller that started it.
+ */
+@Component
+public class SingleFlight {
+
+    public static final String FLIGHTS = "anime.service.flights";
+    public static final String COALESCED = "anime.service.coalesced";
+
+    private final MeterRegistry meterRegistry;
+    private final RoutingConnectionFactory routing;
+    private final boolean enabled;
+    private final Map<List<Object>, Flux<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @param routing may be null without connection pools, the route is then only the read-only marker
+     */
+    public SingleFlight(AnimeProperties animeProperties, MeterRegistry meterRegistry, @Nullable RoutingConnectionFactory routing) {
+        this.meterRegistry = meterRegistry;
+        this.routing = routing;
+        this.enabled = animeProperties.getCoalescing().isEnabled();
+    }
+
+    public <T> Mono<T> mono(String method, Object key, Supplier<Mono<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return join(method, key, () -> loader.get().flux()).singleOrEmpty();
+    }
+
+    /**
+     * Later calls start a new load instead of joining the one in flight, which may have read before a write
+     */
+    public void forget(String method, Object key) {
+        inFlight.remove(List.of(method, key, true));
+        inFlight.remove(List.of(method, key, false));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> join(String method, Object key, Supplier<Flux<T>> loader) {
+        return readsFromReplica().flatMapMany(replica -> {
+            AtomicBoolean started = new AtomicBoolean();
+            Flux<T> flight = (Flux<T>) inFlight.computeIfAbsent(List.of(method, key, replica), k -> {
+                started.set(true);
+                return start(k, replica, loader);
+            });
+            counter(started.get() ? FLIGHTS : COALESCED, method).increment();
+            return flight;
+        });
+    }
+
+    /**
+     * Nothing runs until the first caller subscribes, so the map is never locked during a load.
+     * Loads are monos, so the replay buffer holds at most the one row a late caller still needs.
+     */
+    private <T> Flux<T> start(List<Object> key, boolean replica, Supplier<Flux<T>> loader) {
+        AtomicReference<Flux<T>> flight = new AtomicReference<>();
+        flight.set(Flux.defer(loader)
+                .contextWrite(context -> replica ? DatabaseRoute.readOnly(Context.empty()) : Context.empty())
+                .doFinally(signal -> inFlight.remove(key, flight.get()))
+                .replay()
+                .refCount());
+        return flight.get();
+    }
+
+    private Mono<Boolean> readsFromReplica() {
+        return routing == null
+                ? Mono.deferContextual(context -> Mono.just(DatabaseRoute.isReadOnly(context)))
+                : routing.readsFromReplica();
+    }
+
+    private Counter counter(String name, String method) {
+        return counters.computeIfAbsent(name + ':' + method, k -> meterRegistry.counter(name, "method", method));
+    }
+}
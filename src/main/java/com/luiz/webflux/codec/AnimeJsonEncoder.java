@@ -0,0 +1,170 @@
+package com.luiz.webflux.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.codec.json.Jackson2CodecSupport;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes animes as JSON from a cache of their encoded bytes, kept off-heap so Netty sends them without copying.
+ * The cache is keyed by the anime itself: any write changes its version, so a changed anime is encoded again
+ * and its old bytes are never served. Relies on animes not being mutated once they are read.
+ * Registered ahead of the Jackson encoder, which still writes everything else.
+ */
+@Component
+public class AnimeJsonEncoder implements HttpMessageEncoder<Anime>, MeterBinder {
+
+    private static final ResolvableType ANIME_TYPE = ResolvableType.forClass(Anime.class);
+    private static final ByteBuffer START_ARRAY = bytes("[");
+    private static final ByteBuffer SEPARATOR = bytes(",");
+    private static final ByteBuffer END_ARRAY = bytes("]");
+    private static final ByteBuffer NEWLINE = bytes("\n");
+
+    private final Jackson2JsonEncoder jsonEncoder;
+    private final boolean enabled;
+    private final Cache<Anime, ByteBuffer> cache;
+
+    public AnimeJsonEncoder(ObjectMapper objectMapper, AnimeProperties animeProperties) {
+        AnimeProperties.JsonCache properties = animeProperties.getJsonCache();
+        this.jsonEncoder = new Jackson2JsonEncoder(objectMapper);
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Only UTF-8, the bytes are cached once for every response
+     */
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        return Anime.class == elementType.toClass()
+                && (mimeType == null || mimeType.getCharset() == null || StandardCharsets.UTF_8.equals(mimeType.getCharset()))
+                && jsonEncoder.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return jsonEncoder.getEncodableMimeTypes();
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return jsonEncoder.getStreamingMediaTypes();
+    }
+
+    /**
+     * A single anime or a line of a stream is written straight from the cached bytes. A JSON array is only written
+     * once every anime arrived, like the Jackson encoder does, so a failure still turns into an error response
+     * instead of a truncated body
+     */
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends Anime> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(anime -> encodeValue(anime, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        if (isStreaming(mimeType)) {
+            return Flux.from(inputStream)
+                    .concatMapIterable(anime -> List.of(encodeValue(anime, bufferFactory, elementType, mimeType, hints),
+                            bufferFactory.wrap(NEWLINE.duplicate())));
+        }
+        return Flux.from(inputStream)
+                .collectList()
+                .map(animes -> encodeArray(animes, bufferFactory, elementType, mimeType, hints))
+                .flux();
+    }
+
+    @Override
+    public DataBuffer encodeValue(Anime anime, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        // a JSON view writes a subset of the fields, which the cached bytes are not
+        if (!enabled || (hints != null && hints.containsKey(Jackson2CodecSupport.JSON_VIEW_HINT))) {
+            return jsonEncoder.encodeValue(anime, bufferFactory, valueType, mimeType, hints);
+        }
+        return bufferFactory.wrap(cache.get(anime, this::encodeBytes).duplicate());
+    }
+
+    /**
+     * One buffer for the whole array: copying the cached bytes costs less than wrapping them in a buffer per anime and separator
+     */
+    private DataBuffer encodeArray(List<? extends Anime> animes, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        if (!enabled || (hints != null && hints.containsKey(Jackson2CodecSupport.JSON_VIEW_HINT))) {
+            return jsonEncoder.encodeValue(animes, bufferFactory, ResolvableType.forClassWithGenerics(List.class, elementType),
+                    mimeType, hints);
+        }
+        ByteBuffer[] encoded = new ByteBuffer[Math.max(animes.size() * 2 + 1, 2)];
+        encoded[0] = START_ARRAY.duplicate();
+        for (int i = 0; i < animes.size(); i++) {
+            if (i > 0) {
+                encoded[i * 2] = SEPARATOR.duplicate();
+            }
+            encoded[i * 2 + 1] = cache.get(animes.get(i), this::encodeBytes).duplicate();
+        }
+        encoded[encoded.length - 1] = END_ARRAY.duplicate();
+        int size = 0;
+        for (ByteBuffer bytes : encoded) {
+            size += bytes.remaining();
+        }
+        return bufferFactory.allocateBuffer(size).write(encoded);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "anime-json");
+    }
+
+    private ByteBuffer encodeBytes(Anime anime) {
+        DataBuffer encoded = jsonEncoder.encodeValue(anime, DefaultDataBufferFactory.sharedInstance, ANIME_TYPE,
+                MediaType.APPLICATION_JSON, null);
+        try {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(encoded.readableByteCount());
+            bytes.put(encoded.asByteBuffer()).flip();
+            return bytes.asReadOnlyBuffer();
+        } finally {
+            DataBufferUtils.release(encoded);
+        }
+    }
+
+    private boolean isStreaming(@Nullable MimeType mimeType) {
+        return mimeType != null && getStreamingMediaTypes().stream().anyMatch(mimeType::isCompatibleWith);
+    }
+
+    private static ByteBuffer bytes(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer();
+    }
+}
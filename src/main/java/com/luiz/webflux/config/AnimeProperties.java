@@ -0,0 +1,107 @@
+package com.luiz.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "anime")
+public class AnimeProperties {
+
+    private final Pagination pagination = new Pagination();
+    private final Batch batch = new Batch();
+    private final Cache cache = new Cache();
+    private final JsonCache jsonCache = new JsonCache();
+    private final Search search = new Search();
+    private final Snapshot snapshot = new Snapshot();
+    private final Coalescing coalescing = new Coalescing();
+
+    @Data
+    public static class Pagination {
+        /**
+         * Page size used when the client does not send a limit
+         */
+        private int defaultLimit = 20;
+        /**
+         * Upper bound for the limit a client can ask for
+         */
+        private int maxLimit = 500;
+        /**
+         * Rows fetched per round trip when streaming the catalog
+         */
+        private int streamFetchSize = 256;
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Animes sent to the database in a single multi-row INSERT, at most 65535
+         */
+        private int chunkSize = 500;
+        /**
+         * Chunks written at the same time by the streaming ingest
+         */
+        private int ingestConcurrency = 4;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class JsonCache {
+        /**
+         * Writes animes from their cached JSON bytes instead of encoding them on every response
+         */
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+    }
+
+    @Data
+    public static class Search {
+        /**
+         * Results returned when the client does not send a limit
+         */
+        private int defaultLimit = 20;
+        /**
+         * Upper bound for the limit a client can ask for
+         */
+        private int maxLimit = 100;
+        /**
+         * Shorter queries match too many names for the trigram index to narrow them down
+         */
+        private int minQueryLength = 3;
+    }
+
+    @Data
+    public static class Snapshot {
+        /**
+         * Serves findAll and findById from an in-memory copy of the whole catalog
+         */
+        private boolean enabled = false;
+        /**
+         * How often rows changed by other instances are picked up
+         */
+        private Duration refreshInterval = Duration.ofSeconds(5);
+        /**
+         * How far behind the newest updated_at a refresh looks, for transactions that committed late
+         */
+        private Duration watermarkOverlap = Duration.ofSeconds(5);
+        /**
+         * Startup waits this long for the first load, reads go to the database while it is missing
+         */
+        private Duration loadTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Coalescing {
+        /**
+         * Concurrent identical reads share one query, which reads the primary. Disable to keep those reads on the replicas
+         */
+        private boolean enabled = true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.luiz.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "auth")
+public class AuthProperties {
+
+    private final Cache cache = new Cache();
+    private final Token token = new Token();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        /**
+         * How long a user or a successful password check is trusted before going back to the database and the encoder.
+         * Users are only changed outside the application, so it also bounds how long a changed password or role,
+         * or a disabled user, takes to apply
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Token {
+        /**
+         * Accepts signed bearer tokens issued by POST /auth/token, HTTP Basic stays available
+         */
+        private boolean enabled = false;
+        /**
+         * HMAC key shared by every instance, at least 32 bytes. A random key is generated when empty
+         */
+        private String secret;
+        private Duration ttl = Duration.ofMinutes(15);
+        private String issuer = "spring-webflux-essentials";
+    }
+}
@@ -0,0 +1,46 @@
+package com.luiz.webflux.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.luiz.webflux.codec.AnimeJsonEncoder;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+@Configuration(proxyBeanMethods = false)
+public class CodecConfig {
+
+    /**
+     * The Smile codecs fall back to the JSON types when built with a mapper and no types
+     */
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            new MimeType("application", "x-jackson-smile"),
+            new MimeType("application", "*+x-jackson-smile")
+    };
+
+    /**
+     * Custom encoders that cannot write any Object are consulted before the Jackson one
+     */
+    @Bean
+    public CodecCustomizer animeJsonCodecCustomizer(AnimeJsonEncoder animeJsonEncoder) {
+        return configurer -> configurer.customCodecs().register(animeJsonEncoder);
+    }
+
+    /**
+     * Smile for the consumers that ask for it, the JSON mapping in a binary encoding that also streams lists
+     * as application/stream+x-jackson-smile. The default Smile codecs ignore spring.jackson.*, these share the
+     * settings of the JSON ones
+     */
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        ObjectMapper smileMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory()).build();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE_MIME_TYPES));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+        };
+    }
+}
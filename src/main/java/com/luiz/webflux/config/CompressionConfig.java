@@ -0,0 +1,43 @@
+package com.luiz.webflux.config;
+
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Compression is set up by Boot from server.compression, gzip or deflate as the client accepts.
+ * Netty deflates every chunk with a sync flush, so a streamed anime still reaches the client as soon as it is written.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CompressionConfig {
+
+    /**
+     * Runs after Boot set up compression, keeps its checks and adds the excluded paths
+     */
+    @Bean
+    public NettyServerCustomizer compressionExclusionCustomizer(CompressionProperties compressionProperties) {
+        List<PathPattern> excludedPaths = compressionProperties.getExcludedPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .collect(Collectors.toList());
+        return httpServer -> {
+            if (excludedPaths.isEmpty() || httpServer.configuration().minCompressionSize() < 0) {
+                return httpServer;
+            }
+            BiPredicate<HttpServerRequest, HttpServerResponse> predicate = httpServer.configuration().compressPredicate();
+            return httpServer.compress((request, response) -> {
+                PathContainer path = PathContainer.parsePath(request.fullPath());
+                return excludedPaths.stream().noneMatch(pattern -> pattern.matches(path))
+                        && (predicate == null || predicate.test(request, response));
+            });
+        };
+    }
+}
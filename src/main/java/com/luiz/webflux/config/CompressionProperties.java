@@ -0,0 +1,21 @@
+package com.luiz.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-route exceptions to server.compression, which decides the compressed types and the minimum size
+ */
+@Data
+@ConfigurationProperties(prefix = "compression")
+public class CompressionProperties {
+
+    /**
+     * Path patterns whose responses are never compressed, e.g. /anime/search/** when compressing reflected input
+     * next to a secret is a concern
+     */
+    private List<String> excludedPaths = new ArrayList<>();
+}
@@ -0,0 +1,73 @@
+package com.luiz.webflux.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Opens the initial connections of every pool while the context starts, so the first requests do not pay for them.
+ * Runs in an earlier phase than the web server, which only starts listening once the pools are warm.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConnectionPoolWarmUp implements SmartLifecycle {
+
+    private final Map<String, ConnectionPool> connectionPools;
+    private final DatabaseProperties.Pool properties;
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        if (properties.isWarmUp()) {
+            warmUp();
+        }
+        running = true;
+    }
+
+    private void warmUp() {
+        // the timeout is enforced by the blocked caller, a Mono#timeout would start a parallel worker this early
+        try {
+            Flux.fromIterable(connectionPools.entrySet())
+                    .flatMap(connectionPool -> warmUp(connectionPool.getKey(), connectionPool.getValue()))
+                    .blockLast(properties.getWarmUpTimeout());
+        } catch (IllegalStateException error) {
+            if (properties.isFailOnWarmUpError()) {
+                throw error;
+            }
+            log.warn("Connection pools not warmed up within {}, connections will be opened on demand", properties.getWarmUpTimeout());
+        }
+    }
+
+    private Mono<Integer> warmUp(String name, ConnectionPool connectionPool) {
+        long start = System.nanoTime();
+        return connectionPool.warmup()
+                .doOnSuccess(opened -> log.info("Connection pool {} warmed up in {} ms, {} connections open", name,
+                        (System.nanoTime() - start) / 1_000_000,
+                        connectionPool.getMetrics().map(PoolMetrics::allocatedSize).orElse(0)))
+                .onErrorResume(error -> !properties.isFailOnWarmUpError(), error -> {
+                    log.warn("Connection pool {} warm-up failed, connections will be opened on demand: {}", name, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
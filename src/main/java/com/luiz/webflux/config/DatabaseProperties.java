@@ -0,0 +1,55 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.routing.ReplicaConnectionFactory;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "database")
+public class DatabaseProperties {
+
+    private final Pool pool = new Pool();
+    /**
+     * Read-only operations are spread over these databases, each one gets a pool with the same spring.r2dbc.pool.* settings as the primary
+     */
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Routing routing = new Routing();
+
+    /**
+     * The warm-up of every pool, which Boot has no settings for. The pools themselves follow spring.r2dbc.pool.*
+     */
+    @Data
+    public static class Pool {
+        /**
+         * Opens the initial connections while the application starts, before the web server accepts requests
+         */
+        private boolean warmUp = true;
+        private Duration warmUpTimeout = Duration.ofSeconds(10);
+        /**
+         * Stops the startup when the warm-up fails, otherwise connections are opened on demand
+         */
+        private boolean failOnWarmUpError = false;
+    }
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+
+    @Data
+    public static class Routing {
+        private ReplicaConnectionFactory.Balancing balancing = ReplicaConnectionFactory.Balancing.ROUND_ROBIN;
+        /**
+         * After a write, reads by the same user go to the primary for this long so they are not hidden by replica lag.
+         * Zero disables it
+         */
+        private Duration readYourWrites = Duration.ofSeconds(5);
+        private long maximumWriters = 10_000;
+    }
+}
@@ -0,0 +1,82 @@
+package com.luiz.webflux.config;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.util.ClassUtils;
+import reactor.blockhound.BlockHound;
+import reactor.tools.agent.ReactorDebugAgent;
+
+/**
+ * With diagnostics.enabled, set by the diagnostics profile for development, installs BlockHound with the blocking calls
+ * the application allows and the Reactor debug agent. Runs once the configuration is read and before the context
+ * creates any scheduler, since threads started earlier are not checked.
+ * The jar is packaged without either library, so in production they are neither installed nor loaded.
+ */
+public class DiagnosticsEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String ENABLED = "diagnostics.enabled";
+
+    private static final String BLOCK_HOUND = "reactor.blockhound.BlockHound";
+    private static final String DEBUG_AGENT = "reactor.tools.agent.ReactorDebugAgent";
+
+    private final Log log;
+
+    /**
+     * Logging is not configured yet, the messages are written once it is
+     */
+    public DiagnosticsEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(DiagnosticsEnvironmentPostProcessor.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.getProperty(ENABLED, Boolean.class, false) && !install(application.getClassLoader())) {
+            log.warn("Diagnostics enabled without BlockHound and reactor-tools on the classpath, they are only packaged for development");
+        }
+    }
+
+    /**
+     * Installs whatever of the two is on the classpath, their classes are only loaded here
+     *
+     * @return whether both were installed
+     */
+    public static boolean install(ClassLoader classLoader) {
+        boolean blockHound = ClassUtils.isPresent(BLOCK_HOUND, classLoader);
+        if (blockHound) {
+            BlockHoundInstaller.install();
+        }
+        boolean debugAgent = ClassUtils.isPresent(DEBUG_AGENT, classLoader);
+        if (debugAgent) {
+            DebugAgentInstaller.install();
+        }
+        return blockHound && debugAgent;
+    }
+
+    /**
+     * After the configuration files are read, which also lets Boot's own debug agent post processor see them turned off
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    private static final class BlockHoundInstaller {
+
+        static void install() {
+            BlockHound.install(builder -> builder
+                    .allowBlockingCallsInside("java.io.InputStream", "readNBytes")
+                    .allowBlockingCallsInside("java.io.FilterInputStream", "read"));
+        }
+    }
+
+    private static final class DebugAgentInstaller {
+
+        static void install() {
+            ReactorDebugAgent.init();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.metrics.EventLoopMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    /**
+     * The loop group is only known once the server binds, Boot may have swapped in its own resources by then
+     */
+    @Bean
+    public NettyServerCustomizer eventLoopMetricsCustomizer(MeterRegistry meterRegistry) {
+        return httpServer -> httpServer.doOnBind(config ->
+                EventLoopMetrics.monitor(meterRegistry, config.loopResources().onServer(config.isPreferNative())));
+    }
+}
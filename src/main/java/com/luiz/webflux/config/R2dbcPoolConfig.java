@@ -0,0 +1,139 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.metrics.ConnectionPoolHealthIndicator;
+import com.luiz.webflux.metrics.MeteredConnectionFactory;
+import com.luiz.webflux.metrics.MicrometerPoolMetricsRecorder;
+import com.luiz.webflux.routing.ReplicaConnectionFactory;
+import com.luiz.webflux.routing.RoutingConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.CompositeHealthContributor;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.r2dbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the connection pools with metrics attached: spring.r2dbc.* describes the primary connection,
+ * database.replicas the replicas, spring.r2dbc.pool.* every pool and database.pool.* their warm-up.
+ * Boot has no hook for the pool metrics recorder, and it only binds the pool gauges for a bare ConnectionPool bean.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "spring.r2dbc.pool", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class R2dbcPoolConfig {
+
+    static final String PRIMARY_POOL = "primary";
+    static final String REPLICA_POOL = "replica-";
+
+    @Bean(destroyMethod = "dispose")
+    public MeteredConnectionFactory primaryConnectionFactory(R2dbcProperties properties, DatabaseProperties databaseProperties,
+                                                             ResourceLoader resourceLoader,
+                                                             ObjectProvider<ConnectionFactoryOptionsBuilderCustomizer> customizers,
+                                                             MeterRegistry meterRegistry) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder
+                .of(properties, () -> EmbeddedDatabaseConnection.get(resourceLoader.getClassLoader()))
+                .configure(options -> customizers.orderedStream().forEach(customizer -> customizer.customize(options)))
+                .build();
+        return pooled(PRIMARY_POOL, connectionFactory, properties.getPool(), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "database.replicas[0].url")
+    public ReplicaConnectionFactory replicaConnectionFactory(R2dbcProperties properties, DatabaseProperties databaseProperties,
+                                                             ObjectProvider<ConnectionFactoryOptionsBuilderCustomizer> customizers,
+                                                             MeterRegistry meterRegistry) {
+        List<MeteredConnectionFactory> replicas = new ArrayList<>();
+        for (DatabaseProperties.Replica replica : databaseProperties.getReplicas()) {
+            ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(replica.getUrl()).mutate();
+            PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+            map.from(replica.getUsername()).when(StringUtils::hasText)
+                    .to(username -> options.option(ConnectionFactoryOptions.USER, username));
+            map.from(replica.getPassword()).when(StringUtils::hasText)
+                    .to(password -> options.option(ConnectionFactoryOptions.PASSWORD, password));
+            customizers.orderedStream().forEach(customizer -> customizer.customize(options));
+            replicas.add(pooled(REPLICA_POOL + replicas.size(), ConnectionFactories.get(options.build()),
+                    properties.getPool(), meterRegistry));
+        }
+        return new ReplicaConnectionFactory(replicas, databaseProperties.getRouting().getBalancing());
+    }
+
+    @Bean
+    @Primary
+    public RoutingConnectionFactory connectionFactory(MeteredConnectionFactory primaryConnectionFactory,
+                                                      ObjectProvider<ReplicaConnectionFactory> replicaConnectionFactory,
+                                                      DatabaseProperties databaseProperties) {
+        return new RoutingConnectionFactory(primaryConnectionFactory, replicaConnectionFactory.getIfAvailable(),
+                databaseProperties.getRouting());
+    }
+
+    @Bean
+    public ConnectionPoolWarmUp connectionPoolWarmUp(MeteredConnectionFactory primaryConnectionFactory,
+                                                     ObjectProvider<ReplicaConnectionFactory> replicaConnectionFactory,
+                                                     DatabaseProperties databaseProperties) {
+        return new ConnectionPoolWarmUp(connectionPools(primaryConnectionFactory, replicaConnectionFactory.getIfAvailable()),
+                databaseProperties.getPool());
+    }
+
+    @Bean
+    public CompositeHealthContributor connectionPool(MeteredConnectionFactory primaryConnectionFactory,
+                                                     ObjectProvider<ReplicaConnectionFactory> replicaConnectionFactory) {
+        return CompositeHealthContributor.fromMap(connectionPools(primaryConnectionFactory, replicaConnectionFactory.getIfAvailable()),
+                ConnectionPoolHealthIndicator::new);
+    }
+
+    private Map<String, ConnectionPool> connectionPools(MeteredConnectionFactory primaryConnectionFactory,
+                                                        ReplicaConnectionFactory replicaConnectionFactory) {
+        Map<String, ConnectionPool> connectionPools = new LinkedHashMap<>();
+        connectionPools.put(PRIMARY_POOL, (ConnectionPool) primaryConnectionFactory.unwrap());
+        if (replicaConnectionFactory != null) {
+            List<ConnectionFactory> replicas = replicaConnectionFactory.getReplicas();
+            for (int i = 0; i < replicas.size(); i++) {
+                connectionPools.put(REPLICA_POOL + i, (ConnectionPool) ((MeteredConnectionFactory) replicas.get(i)).unwrap());
+            }
+        }
+        return connectionPools;
+    }
+
+    /**
+     * Applies spring.r2dbc.pool.* the way Boot does for the pool it builds itself
+     */
+    private MeteredConnectionFactory pooled(String name, ConnectionFactory connectionFactory, R2dbcProperties.Pool pool,
+                                            MeterRegistry meterRegistry) {
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory)
+                .name(name)
+                .metricsRecorder(new MicrometerPoolMetricsRecorder(name, meterRegistry));
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getInitialSize()).to(builder::initialSize);
+        map.from(pool.getMaxSize()).to(builder::maxSize);
+        map.from(pool.getValidationQuery()).when(StringUtils::hasText).to(builder::validationQuery);
+        map.from(pool.getValidationDepth()).to(builder::validationDepth);
+        ConnectionPool connectionPool = new ConnectionPool(builder.build());
+        new ConnectionPoolMetrics(connectionPool, name, Tags.empty()).bindTo(meterRegistry);
+        return new MeteredConnectionFactory(connectionPool, name, meterRegistry);
+    }
+}
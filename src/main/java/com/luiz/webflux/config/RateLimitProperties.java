@@ -0,0 +1,57 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.domain.Role;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    /**
+     * Buckets kept in memory, one per user and route, the least recently used ones are dropped beyond it
+     */
+    private long maximumBuckets = 100_000;
+    /**
+     * A bucket unused for this long is dropped. Longer than capacity / rate, the bucket is full again by then
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    /**
+     * Checked in order, a request only counts against the first route it matches
+     */
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String name;
+        /**
+         * Every method when empty
+         */
+        private HttpMethod method;
+        private String path;
+        /**
+         * A user gets the limit of their highest role, requests of a role without a limit are not limited
+         */
+        private Map<Role, Limit> limits = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Limit {
+        /**
+         * Requests a user can send in a burst
+         */
+        private int capacity;
+        /**
+         * Requests per second a user can sustain
+         */
+        private double rate;
+    }
+}
@@ -1,38 +1,106 @@
 package com.luiz.webflux.config;
 
+import com.luiz.webflux.security.CachingPasswordEncoder;
+import com.luiz.webflux.security.RateLimitWebFilter;
+import com.luiz.webflux.security.TokenService;
 import com.luiz.webflux.service.UserDetailService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
-import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 
+@Configuration(proxyBeanMethods = false)
 @EnableWebFluxSecurity
-@EnableReactiveMethodSecurity
 public class SecurityConfig {
 
+    /**
+     * Tokens are only issued against the password: a bearer token cannot renew itself, and every new token
+     * goes through the user row, so a disabled user or a removed role stops getting one
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnProperty(prefix = "auth.token", name = "enabled", havingValue = "true")
+    public SecurityWebFilterChain tokenSecurityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .securityMatcher(ServerWebExchangeMatchers.pathMatchers("/auth/**"))
+                .csrf().disable()
+                .authorizeExchange()
+                .anyExchange().authenticated()
+                .and().httpBasic()
+                .and().build();
+    }
+
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, ObjectProvider<ReactiveJwtDecoder> jwtDecoder,
+                                                         RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+        // token mode: bearer tokens are verified with the shared key only, Basic stays for tooling
+        jwtDecoder.ifAvailable(decoder -> http.oauth2ResourceServer()
+                .jwt()
+                .jwtDecoder(decoder)
+                .jwtAuthenticationConverter(jwtAuthenticationConverter()));
+        // after authorization, only the requests a user is allowed to send count against their limit
+        if (rateLimitProperties.isEnabled()) {
+            http.addFilterAfter(new RateLimitWebFilter(rateLimitProperties, meterRegistry), SecurityWebFiltersOrder.AUTHORIZATION);
+        }
         return http
                 .csrf().disable()
                 .authorizeExchange()
+                // the whole catalog, listed, paged or streamed: a rule on the URL, method security would proxy the controller
+                .pathMatchers(HttpMethod.GET, "/anime").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.GET, "/anime/**").hasRole("USER")
                 .pathMatchers(HttpMethod.POST, "/anime/**").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.PUT, "/anime/**").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.DELETE, "/anime/**").hasRole("ADMIN")
                 .pathMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/webjars/**").permitAll()
+                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .pathMatchers("/actuator/**").hasRole("ADMIN")
                 .anyExchange().authenticated()
                 .and().formLogin()
                 .and().httpBasic()
                 .and().build();
     }
 
+    private ReactiveJwtAuthenticationConverterAdapter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName(TokenService.ROLES_CLAIM);
+        authoritiesConverter.setAuthorityPrefix("");
+        JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return new ReactiveJwtAuthenticationConverterAdapter(authenticationConverter);
+    }
+
+    @Bean
+    ReactiveAuthenticationManager authenticationManager(UserDetailService userDetailService, PasswordEncoder passwordEncoder) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        return authenticationManager;
+    }
+
     @Bean
-    ReactiveAuthenticationManager authenticationManager(UserDetailService userDetailService) {
-        return new UserDetailsRepositoryReactiveAuthenticationManager(userDetailService);
+    PasswordEncoder passwordEncoder(AuthProperties authProperties) {
+        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        if (!authProperties.getCache().isEnabled()) {
+            return passwordEncoder;
+        }
+        return new CachingPasswordEncoder(passwordEncoder, authProperties.getCache());
     }
 
     /**
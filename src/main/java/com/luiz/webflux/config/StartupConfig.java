@@ -0,0 +1,21 @@
+package com.luiz.webflux.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    private static final String LAZY_PACKAGE = "org.springdoc.";
+
+    /**
+     * With spring.main.lazy-initialization, as in the fast-startup profile, only the OpenAPI documentation and
+     * the Swagger UI are left to the first request that needs them: the first API request would otherwise pay
+     * for whatever else is deferred
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter documentationOnlyLazyInitialization() {
+        return (beanName, beanDefinition, beanType) -> beanType == null || !beanType.getName().startsWith(LAZY_PACKAGE);
+    }
+}
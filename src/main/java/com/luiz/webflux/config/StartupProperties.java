@@ -0,0 +1,22 @@
+package com.luiz.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The startup report logged once the application is ready, and the training run that records the classes for the CDS archive
+ */
+@Data
+@ConfigurationProperties(prefix = "startup")
+public class StartupProperties {
+
+    /**
+     * Slowest bean instantiations listed in the report, nested ones included in the time of the bean that needed them
+     */
+    private int reportedBeans = 10;
+
+    /**
+     * Stops the application once it is ready, for the training run of -Pfast-startup
+     */
+    private boolean exitWhenReady;
+}
@@ -0,0 +1,40 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.security.TokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "auth.token", name = "enabled", havingValue = "true")
+@Slf4j
+public class TokenConfig {
+
+    @Bean
+    public TokenService tokenService(AuthProperties authProperties) {
+        AuthProperties.Token properties = authProperties.getToken();
+        return new TokenService(secret(properties), properties, Clock.systemUTC());
+    }
+
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(TokenService tokenService) {
+        return tokenService.decoder();
+    }
+
+    private byte[] secret(AuthProperties.Token properties) {
+        if (StringUtils.hasText(properties.getSecret())) {
+            return properties.getSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        log.warn("auth.token.secret is not set, tokens will only be valid on this instance until it restarts");
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+}
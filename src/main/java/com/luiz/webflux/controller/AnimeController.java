@@ -1,6 +1,10 @@
 package com.luiz.webflux.controller;
 
 import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeBatchProgress;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.domain.AnimePage;
+import com.luiz.webflux.domain.AnimeVersion;
 import com.luiz.webflux.service.AnimeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
@@ -8,14 +12,22 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("anime")
@@ -28,17 +40,81 @@ import java.util.List;
 )
 public class AnimeController {
 
+    /**
+     * Replaces the no-store default of Spring Security, so clients keep the anime and revalidate it
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final String SMILE_VALUE = "application/x-jackson-smile";
+    private static final String SMILE_STREAM_VALUE = "application/stream+x-jackson-smile";
+
+    private static final Pattern VERSION_ETAG = Pattern.compile("\"(\\d{1,18})\"");
+    private static final long NO_VERSION = -1;
+
     private final AnimeService animeService;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    @PreAuthorize("hasRole('ADMIN')")
     @Operation(
             summary = "List all animes",
             security = @SecurityRequirement(name = "Basic Authentication"),
             tags = {"anime"})
-    public Flux<Anime> listAll() {
-        return animeService.findAll();
+    public Mono<ResponseEntity<Flux<Anime>>> listAll(@RequestHeader HttpHeaders headers) {
+        // WebFlux answers a matching If-None-Match with 304 before subscribing to the body
+        // no Last-Modified: deleting an anime does not move any timestamp
+        // the version is read first, so a concurrent write can only leave the ETag older than the body, never newer
+        // only a conditional request needs the current version, any other is tagged with a recent one
+        Mono<AnimeListVersion> version = headers.getIfNoneMatch().isEmpty()
+                ? animeService.findRecentListVersion()
+                : animeService.findListVersion();
+        // weak: the JSON, Smile, compressed and identity bodies of one version are different bytes
+        return version.map(listVersion -> ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .eTag("W/" + eTag(listVersion.getCount(), listVersion.getMaxId(), listVersion.getVersionSum()))
+                .body(animeService.findAll()));
+    }
+
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "List animes one page at a time, ordered by id",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Mono<AnimePage> listPage(@RequestParam(required = false) Integer after, @RequestParam Integer limit) {
+        return animeService.findPage(after, limit);
+    }
+
+    /**
+     * A page after the cursor, of the default size. Only for the formats of a page: a stream also starts after a cursor
+     */
+    @GetMapping(params = {"after", "!limit"}, produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "List animes one page at a time, ordered by id, with the default page size",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Mono<AnimePage> listPageAfter(@RequestParam Integer after) {
+        return animeService.findPage(after, null);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE, SMILE_STREAM_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Stream all animes, ordered by id, as they are read from the database",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Flux<Anime> stream(@RequestParam(required = false) Integer after) {
+        return animeService.stream(after);
+    }
+
+    @GetMapping(path = "search")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Search animes by name, best match first",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Flux<Anime> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return animeService.search(q, limit);
     }
 
     @GetMapping(path = "{id}")
@@ -46,8 +122,16 @@ public class AnimeController {
     @Operation(
             security = @SecurityRequirement(name = "Basic Authentication"),
             tags = {"anime"})
-    public Mono<Anime> findById(@PathVariable int id) {
-        return animeService.findById(id);
+    public Mono<Anime> findById(@PathVariable int id, ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        if (headers.getIfNoneMatch().isEmpty() && headers.getIfModifiedSince() < 0) {
+            return animeService.findById(id)
+                    .doOnNext(anime -> notModified(exchange, AnimeVersion.of(anime)));
+        }
+        // a client copy that is still current is answered from the version alone, without loading and encoding the anime
+        return animeService.findVersion(id)
+                .filter(version -> !notModified(exchange, version))
+                .flatMap(version -> animeService.findById(id));
     }
 
     @PostMapping
@@ -68,13 +152,23 @@ public class AnimeController {
         return animeService.saveAll(animes);
     }
 
+    @PostMapping(path = "batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(
+            summary = "Save a newline delimited stream of animes, reporting progress per chunk",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Flux<AnimeBatchProgress> ingest(@RequestBody Flux<Anime> animes) {
+        return animeService.ingest(animes);
+    }
+
     @PutMapping(path = "{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(
             security = @SecurityRequirement(name = "Basic Authentication"),
             tags = {"anime"})
-    public Mono<Void> update(@PathVariable int id, @Valid @RequestBody Anime anime) {
-        return animeService.update(anime.withId(id));
+    public Mono<Void> update(@PathVariable int id, @Valid @RequestBody Anime anime, @RequestHeader HttpHeaders headers) {
+        return animeService.update(anime.withId(id).withVersion(expectedVersion(headers)));
     }
 
     @DeleteMapping(path = "{id}")
@@ -82,7 +176,42 @@ public class AnimeController {
     @Operation(
             security = @SecurityRequirement(name = "Basic Authentication"),
             tags = {"anime"})
-    public Mono<Void> delete(@PathVariable int id) {
-        return animeService.delete(id);
+    public Mono<Void> delete(@PathVariable int id, @RequestHeader HttpHeaders headers) {
+        return animeService.delete(id, expectedVersion(headers));
+    }
+
+    /**
+     * Sets the validators of the anime and tells whether the client copy is current, the status is then already 304.
+     * The ETag stays strong for If-Match, so it is shared by the JSON, Smile and compressed bodies:
+     * Vary keeps a cache from reusing a copy in another format or coding
+     */
+    private static boolean notModified(ServerWebExchange exchange, AnimeVersion version) {
+        exchange.getResponse().getHeaders().setCacheControl(REVALIDATE);
+        exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+        String eTag = eTag(version.getVersion());
+        return version.getUpdatedAt() == null ? exchange.checkNotModified(eTag) : exchange.checkNotModified(eTag, version.getUpdatedAt());
+    }
+
+    /**
+     * The version named by If-Match, null without the header or with *. If-Match compares strongly,
+     * so an ETag that is not the quoted version of an anime expects a version no anime has
+     */
+    private static Long expectedVersion(HttpHeaders headers) {
+        List<String> ifMatch = headers.getIfMatch();
+        if (ifMatch.isEmpty() || ifMatch.contains("*")) {
+            return null;
+        }
+        return ifMatch.stream()
+                .map(VERSION_ETAG::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> Long.valueOf(matcher.group(1)))
+                .findFirst()
+                .orElse(NO_VERSION);
+    }
+
+    private static String eTag(Object... parts) {
+        return Stream.of(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-", "\"", "\""));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.luiz.webflux.controller;
+
+import com.luiz.webflux.domain.TokenResponse;
+import com.luiz.webflux.security.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("auth")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "auth.token", name = "enabled", havingValue = "true")
+public class AuthController {
+
+    private final TokenService tokenService;
+
+    @PostMapping("token")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Issue a bearer token for the authenticated user",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"auth"})
+    public Mono<TokenResponse> token(Mono<Authentication> authentication) {
+        return authentication.map(tokenService::issue);
+    }
+}
@@ -1,11 +1,15 @@
 package com.luiz.webflux.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
 
 @Data
 @AllArgsConstructor
@@ -19,4 +23,14 @@ public class Anime {
     @NotNull
     @NotEmpty(message = "The name of this anime cannot be empty")
     private String name;
+    /**
+     * Incremented on every update, the ETag of the anime. Null until the anime is saved
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant updatedAt;
 }
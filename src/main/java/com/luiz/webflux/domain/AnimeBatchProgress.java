@@ -0,0 +1,22 @@
+package com.luiz.webflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AnimeBatchProgress {
+    /**
+     * Position of the chunk in the ingested stream, starting at zero
+     */
+    private long chunk;
+    private int saved;
+    /**
+     * Animes saved so far, including this chunk
+     */
+    private long total;
+}
@@ -0,0 +1,20 @@
+package com.luiz.webflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Changes whenever an anime is saved, updated or deleted: saving raises maxId, deleting lowers count
+ * and updating raises versionSum
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AnimeListVersion {
+    private long count;
+    private int maxId;
+    private long versionSum;
+}
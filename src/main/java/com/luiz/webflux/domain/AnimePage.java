@@ -0,0 +1,20 @@
+package com.luiz.webflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AnimePage {
+    private List<Anime> content;
+    /**
+     * Cursor to send as "after" to fetch the next page, null on the last page
+     */
+    private Integer next;
+}
@@ -0,0 +1,27 @@
+package com.luiz.webflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * The columns of an anime that tell whether a client copy is still current
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AnimeVersion {
+    private long version;
+    private Instant updatedAt;
+
+    /**
+     * An anime without a version yet counts as the first one, like the column default
+     */
+    public static AnimeVersion of(Anime anime) {
+        return new AnimeVersion(anime.getVersion() == null ? 0 : anime.getVersion(), anime.getUpdatedAt());
+    }
+}
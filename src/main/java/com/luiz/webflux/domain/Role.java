@@ -0,0 +1,19 @@
+package com.luiz.webflux.domain;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public enum Role {
+    USER,
+    ADMIN;
+
+    private final GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + name());
+
+    public GrantedAuthority getAuthority() {
+        return authority;
+    }
+
+    int mask() {
+        return 1 << ordinal();
+    }
+}
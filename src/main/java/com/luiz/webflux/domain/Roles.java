@@ -0,0 +1,81 @@
+package com.luiz.webflux.domain;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, interned view of a comma-separated authorities column such as "ROLE_USER,ROLE_ADMIN".
+ * Known roles are kept as a bitset for constant-time checks, and every user sharing the same column value
+ * shares the same instance and the same authority list, so reading them allocates nothing.
+ */
+public final class Roles {
+
+    private static final int MAX_INTERNED = 1024;
+    private static final Map<String, Roles> INTERNED = new ConcurrentHashMap<>();
+
+    private final int bits;
+    private final List<GrantedAuthority> authorities;
+
+    private Roles(int bits, List<GrantedAuthority> authorities) {
+        this.bits = bits;
+        this.authorities = authorities;
+    }
+
+    public static Roles parse(String authorities) {
+        if (authorities == null) {
+            return parse("");
+        }
+        Roles roles = INTERNED.get(authorities);
+        if (roles != null) {
+            return roles;
+        }
+        roles = create(authorities);
+        if (INTERNED.size() < MAX_INTERNED) {
+            Roles previous = INTERNED.putIfAbsent(authorities, roles);
+            return previous != null ? previous : roles;
+        }
+        return roles;
+    }
+
+    public boolean has(Role role) {
+        return (bits & role.mask()) != 0;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    private static Roles create(String authorities) {
+        int bits = 0;
+        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+        for (String authority : authorities.split(",")) {
+            String name = authority.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Role role = toRole(name);
+            if (role != null) {
+                bits |= role.mask();
+                grantedAuthorities.add(role.getAuthority());
+            } else {
+                grantedAuthorities.add(new SimpleGrantedAuthority(name));
+            }
+        }
+        return new Roles(bits, Collections.unmodifiableList(grantedAuthorities));
+    }
+
+    private static Role toRole(String authority) {
+        for (Role role : Role.values()) {
+            if (role.getAuthority().getAuthority().equals(authority)) {
+                return role;
+            }
+        }
+        return null;
+    }
+}
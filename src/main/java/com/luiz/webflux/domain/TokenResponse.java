@@ -0,0 +1,18 @@
+package com.luiz.webflux.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TokenResponse {
+    private String token;
+    private String tokenType;
+    private Instant expiresAt;
+}
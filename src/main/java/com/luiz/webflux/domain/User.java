@@ -2,20 +2,16 @@ package com.luiz.webflux.domain;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Table;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
-@Builder
-@With
 @Table("devdojo_user")
 public class User implements UserDetails {
 
@@ -25,12 +21,38 @@ public class User implements UserDetails {
     private String username;
     private String password;
     private String authorities; //ROLE_USER, ROLE_ADMIN
+    /**
+     * The authorities column parsed once, when the row is mapped or the column is set
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Roles roles = Roles.parse(null);
+
+    @Builder
+    @PersistenceConstructor
+    public User(Integer id, String name, String username, String password, String authorities) {
+        this.id = id;
+        this.name = name;
+        this.username = username;
+        this.password = password;
+        setAuthorities(authorities);
+    }
+
+    public void setAuthorities(String authorities) {
+        this.authorities = authorities;
+        this.roles = Roles.parse(authorities);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Arrays.stream(authorities.split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return roles.getAuthorities();
+    }
+
+    public boolean hasRole(Role role) {
+        return roles.has(role);
     }
 
     @Override
@@ -11,6 +11,8 @@ import org.springframework.web.server.ResponseStatusException;
 @Component
 public class CustomAttributes extends DefaultErrorAttributes {
 
+    static final String DEVELOPER_MESSAGE = "A ResponseStatusException Happened";
+
     @Override
     public Map<String, Object> getErrorAttributes(ServerRequest request, ErrorAttributeOptions options) {
         Map<String, Object> errorAttributesMap = super.getErrorAttributes(request, options);
@@ -18,7 +20,7 @@ public class CustomAttributes extends DefaultErrorAttributes {
         if (throwable instanceof ResponseStatusException) {
             ResponseStatusException ex = (ResponseStatusException) throwable;
             errorAttributesMap.put("message", ex.getMessage());
-            errorAttributesMap.put("developerMessage", "A ResponseStatusException Happened");
+            errorAttributesMap.put("developerMessage", DEVELOPER_MESSAGE);
             return errorAttributesMap;
         }
 
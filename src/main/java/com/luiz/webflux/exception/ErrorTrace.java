@@ -0,0 +1,41 @@
+package com.luiz.webflux.exception;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Marks the reactive chain of a request sent with trace=true, so the errors raised for it know they have to capture
+ * their stack trace: {@code Mono.deferContextual(context -> Mono.error(new NotFoundException(reason, ErrorTrace.isRequested(context))))}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ErrorTrace implements WebFilter {
+
+    private static final String REQUESTED = ErrorTrace.class.getName() + ".REQUESTED";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!isRequested(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).contextWrite(context -> context.put(REQUESTED, Boolean.TRUE));
+    }
+
+    /**
+     * The query parameters are parsed once per request and kept by it
+     */
+    public static boolean isRequested(ServerHttpRequest request) {
+        return "true".equals(request.getQueryParams().getFirst("trace"));
+    }
+
+    public static boolean isRequested(ContextView context) {
+        return context.hasKey(REQUESTED);
+    }
+}
@@ -1,8 +1,16 @@
 package com.luiz.webflux.exception;
 import static org.springframework.boot.web.error.ErrorAttributeOptions.*;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.boot.autoconfigure.web.ResourceProperties;
 import org.springframework.boot.autoconfigure.web.reactive.error.AbstractErrorWebExceptionHandler;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
@@ -10,28 +18,44 @@ import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
 import org.springframework.boot.web.reactive.error.ErrorAttributes;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
 import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.RequestPredicates;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+/**
+ * A ResponseStatusException without trace=true, such as the 404 of a missing anime, is written from JSON encoded once
+ * per status and message, only the timestamp, path and request id are encoded for each request.
+ * The body is the one CustomAttributes gives, everything else goes through the error attributes.
+ */
 @Component
 @Order(-2)
 public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
 
+    private static final int MAX_PRECOMPUTED = 256;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> precomputed = new ConcurrentHashMap<>();
+    private final String developerMessage;
+
     public GlobalExceptionHandler(ErrorAttributes errorAttributes,
                                   ResourceProperties resourceProperties,
                                   ApplicationContext applicationContext,
                                   ServerCodecConfigurer codecConfigurer) {
         super(errorAttributes, resourceProperties, applicationContext);
         this.setMessageWriters(codecConfigurer.getWriters());
+        this.objectMapper = objectMapper(codecConfigurer);
+        this.developerMessage = objectMapper == null ? null : attributes(Map.of("developerMessage", CustomAttributes.DEVELOPER_MESSAGE));
     }
 
     @Override
@@ -40,8 +64,15 @@ public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
     }
 
     private Mono<ServerResponse> formatErrorResponse(ServerRequest request) {
-        String query = request.uri().getQuery();
-        ErrorAttributeOptions errorAttributeOptions = isTraceEnabled(query) ? of(Include.STACK_TRACE) : defaults();
+        boolean trace = ErrorTrace.isRequested(request.exchange().getRequest());
+        Throwable error = getError(request);
+        if (!trace && objectMapper != null && error instanceof ResponseStatusException) {
+            HttpStatus status = HttpStatus.resolve(((ResponseStatusException) error).getRawStatusCode());
+            if (status != null) {
+                return precomputedResponse(request, status, error.getMessage());
+            }
+        }
+        ErrorAttributeOptions errorAttributeOptions = trace ? of(Include.STACK_TRACE) : defaults();
 
         Map<String, Object> errorAttributesMap = getErrorAttributes(request, errorAttributeOptions);
         int status = (int) Optional.ofNullable(errorAttributesMap.get("status")).orElse(500);
@@ -51,7 +82,64 @@ public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
                 .body(BodyInserters.fromValue(errorAttributesMap));
     }
 
-    private boolean isTraceEnabled(String query) {
-        return !StringUtils.isEmpty(query) && query.contains("trace=true");
+    private Mono<ServerResponse> precomputedResponse(ServerRequest request, HttpStatus status, String message) {
+        String statusAttributes = precomputed.get(message);
+        if (statusAttributes == null) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("status", status.value());
+            attributes.put("error", status.getReasonPhrase());
+            attributes.put("message", message);
+            statusAttributes = attributes(attributes);
+            // messages are meant to be fixed, the bound only keeps one that is not from filling the map
+            if (precomputed.size() < MAX_PRECOMPUTED) {
+                precomputed.putIfAbsent(message, statusAttributes);
+            }
+        }
+        byte[] body;
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(256)) {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(bytes, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeFieldName("timestamp");
+                generator.writeObject(new Date());
+                generator.writeStringField("path", request.path());
+                generator.writeRaw(statusAttributes);
+                generator.writeStringField("requestId", request.exchange().getRequest().getId());
+                generator.writeRaw(developerMessage);
+                generator.writeEndObject();
+            }
+            body = bytes.toByteArray();
+        } catch (IOException error) {
+            throw new IllegalStateException("Error body not written", error);
+        }
+        return ServerResponse
+                .status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .body(BodyInserters.fromDataBuffers(Mono.just(request.exchange().getResponse().bufferFactory().wrap(body))));
+    }
+
+    /**
+     * The attributes encoded as the members of an object, following the ones already written
+     */
+    private String attributes(Map<String, Object> attributes) {
+        try {
+            String json = objectMapper.writeValueAsString(attributes);
+            return "," + json.substring(1, json.length() - 1);
+        } catch (IOException error) {
+            throw new IllegalStateException("Error attributes not encoded", error);
+        }
+    }
+
+    /**
+     * The one the JSON responses are written with, so the dates come out the same
+     */
+    private static ObjectMapper objectMapper(ServerCodecConfigurer codecConfigurer) {
+        return codecConfigurer.getWriters().stream()
+                .filter(EncoderHttpMessageWriter.class::isInstance)
+                .map(writer -> ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .filter(Jackson2JsonEncoder.class::isInstance)
+                .map(encoder -> ((Jackson2JsonEncoder) encoder).getObjectMapper())
+                .findFirst()
+                .orElse(null);
     }
-}
\ No newline at end of file
+}
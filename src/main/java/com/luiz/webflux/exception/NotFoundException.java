@@ -0,0 +1,28 @@
+package com.luiz.webflux.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A 404 that only captures its stack trace when the request asked for it with trace=true,
+ * clients probing ids that do not exist make it the most frequent error and the trace tells nothing the status does not.
+ * Not shared between requests: Reactor records the checkpoints an error passes as suppressed exceptions,
+ * which a ResponseStatusException cannot turn off, so a shared instance would keep growing.
+ */
+public class NotFoundException extends ResponseStatusException {
+
+    public NotFoundException(String reason, boolean stackTrace) {
+        super(HttpStatus.NOT_FOUND, reason);
+        if (stackTrace) {
+            super.fillInStackTrace();
+        }
+    }
+
+    /**
+     * Called by the Throwable constructor, before the stackTrace flag could be read
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,96 @@
+package com.luiz.webflux.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Times AnimeService calls from subscription to termination, tagged with the method and how the call ended.
+ * The timer count is the call counter, so not-found and error rates come from the same meter.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnimeMetrics {
+
+    public static final String CALLS = "anime.service.calls";
+    public static final String ITEMS = "anime.service.items";
+
+    static final String SUCCESS = "success";
+    static final String NOT_FOUND = "not_found";
+    static final String CLIENT_ERROR = "client_error";
+    static final String ERROR = "error";
+    static final String CANCELLED = "cancelled";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public <T> Mono<T> timed(String method, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Call call = new Call(method);
+            return mono.doOnSuccess(value -> call.stop(SUCCESS))
+                    .doOnError(error -> call.stop(outcome(error)))
+                    .doOnCancel(() -> call.stop(CANCELLED));
+        });
+    }
+
+    /**
+     * Same as the Mono variant, also counting the elements emitted so streamed and batched rows are visible.
+     */
+    public <T> Flux<T> timed(String method, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Call call = new Call(method);
+            Counter items = counters.computeIfAbsent(method, key -> meterRegistry.counter(ITEMS, "method", key));
+            return flux.doOnNext(item -> items.increment())
+                    .doOnComplete(() -> call.stop(SUCCESS))
+                    .doOnError(error -> call.stop(outcome(error)))
+                    .doOnCancel(() -> call.stop(CANCELLED));
+        });
+    }
+
+    static String outcome(Throwable error) {
+        if (!(error instanceof ResponseStatusException)) {
+            return ERROR;
+        }
+        HttpStatus status = ((ResponseStatusException) error).getStatus();
+        if (status == HttpStatus.NOT_FOUND) {
+            return NOT_FOUND;
+        }
+        return status.is4xxClientError() ? CLIENT_ERROR : ERROR;
+    }
+
+    private Timer timer(String method, String outcome) {
+        return timers.computeIfAbsent(method + ':' + outcome, key -> Timer.builder(CALLS)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private final class Call {
+
+        private final String method;
+        private final Timer.Sample sample = Timer.start(meterRegistry);
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        private Call(String method) {
+            this.method = method;
+        }
+
+        // a cancel can still arrive after the terminal signal, only the first one is recorded
+        private void stop(String outcome) {
+            if (stopped.compareAndSet(false, true)) {
+                sample.stop(timer(method, outcome));
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.luiz.webflux.metrics;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+/**
+ * Pool state on /actuator/health. A saturated pool stays UP: pending acquires are reported,
+ * restarting the instance would not make the database answer faster.
+ */
+@RequiredArgsConstructor
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private final ConnectionPool connectionPool;
+
+    @Override
+    public Health health() {
+        if (connectionPool.isDisposed()) {
+            return Health.down().withDetail("disposed", true).build();
+        }
+        return connectionPool.getMetrics()
+                .map(metrics -> details(Health.up(), metrics))
+                .orElseGet(Health::up)
+                .build();
+    }
+
+    private Health.Builder details(Health.Builder builder, PoolMetrics metrics) {
+        return builder.withDetail("acquired", metrics.acquiredSize())
+                .withDetail("idle", metrics.idleSize())
+                .withDetail("allocated", metrics.allocatedSize())
+                .withDetail("pending", metrics.pendingAcquireSize())
+                .withDetail("maxAllocated", metrics.getMaxAllocatedSize())
+                .withDetail("maxPending", metrics.getMaxPendingAcquireSize());
+    }
+}
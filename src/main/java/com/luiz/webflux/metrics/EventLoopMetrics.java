@@ -0,0 +1,31 @@
+package com.luiz.webflux.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/**
+ * Pending task gauges for the server event loops.
+ * A growing queue means handlers are doing too much work on the loop, not that the database is slow.
+ */
+public final class EventLoopMetrics {
+
+    public static final String PENDING_TASKS = "reactor.netty.eventloop.pending.tasks";
+
+    private EventLoopMetrics() {
+    }
+
+    public static void monitor(MeterRegistry meterRegistry, EventLoopGroup group) {
+        int index = 0;
+        for (EventExecutor executor : group) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                Gauge.builder(PENDING_TASKS, (SingleThreadEventExecutor) executor, SingleThreadEventExecutor::pendingTasks)
+                        .tag("loop", String.valueOf(index))
+                        .register(meterRegistry);
+            }
+            index++;
+        }
+    }
+}
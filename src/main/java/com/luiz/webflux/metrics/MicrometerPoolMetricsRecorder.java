@@ -0,0 +1,84 @@
+package com.luiz.webflux.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.pool.PoolMetricsRecorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool internals the R2DBC pool reports on its own: connection creation, reset, destroy, lifetime and idle time.
+ * The fast and slow path callbacks are not meters, the pool version in use never calls them.
+ */
+public class MicrometerPoolMetricsRecorder implements PoolMetricsRecorder {
+
+    private final Timer allocated;
+    private final Timer allocationFailed;
+    private final Timer reset;
+    private final Timer destroyed;
+    private final Timer lifetime;
+    private final Timer idle;
+    private final Counter recycled;
+
+    public MicrometerPoolMetricsRecorder(String name, MeterRegistry meterRegistry) {
+        this.allocated = timer("r2dbc.pool.allocation", name, "success", meterRegistry);
+        this.allocationFailed = timer("r2dbc.pool.allocation", name, "error", meterRegistry);
+        this.reset = timer("r2dbc.pool.reset", name, null, meterRegistry);
+        this.destroyed = timer("r2dbc.pool.destroy", name, null, meterRegistry);
+        this.lifetime = timer("r2dbc.pool.lifetime", name, null, meterRegistry);
+        this.idle = timer("r2dbc.pool.idle.time", name, null, meterRegistry);
+        this.recycled = meterRegistry.counter("r2dbc.pool.recycled", "name", name);
+    }
+
+    @Override
+    public void recordAllocationSuccessAndLatency(long latencyMs) {
+        allocated.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordAllocationFailureAndLatency(long latencyMs) {
+        allocationFailed.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordResetLatency(long latencyMs) {
+        reset.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordDestroyLatency(long latencyMs) {
+        destroyed.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordRecycled() {
+        recycled.increment();
+    }
+
+    @Override
+    public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+        lifetime.record(millisecondsSinceAllocation, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordIdleTime(long millisecondsIdle) {
+        idle.record(millisecondsIdle, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordSlowPath() {
+    }
+
+    @Override
+    public void recordFastPath() {
+    }
+
+    private static Timer timer(String meter, String name, String outcome, MeterRegistry meterRegistry) {
+        Timer.Builder builder = Timer.builder(meter).tag("name", name);
+        if (outcome != null) {
+            builder.tag("outcome", outcome);
+        }
+        return builder.register(meterRegistry);
+    }
+}
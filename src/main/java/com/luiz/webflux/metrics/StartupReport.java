@@ -0,0 +1,65 @@
+package com.luiz.webflux.metrics;
+
+import com.luiz.webflux.config.StartupProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+/**
+ * Logs how long the application took to be ready since the JVM started, and the slowest bean instantiations
+ * when the startup steps were recorded, which the application class does.
+ * The steps are drained once reported, the startup actuator endpoint is not exposed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent> {
+
+    static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+
+    private final StartupProperties properties;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        ApplicationStartup applicationStartup = event.getApplicationContext().getApplicationStartup();
+        if (applicationStartup instanceof BufferingApplicationStartup) {
+            log.info("Ready {} ms after the JVM started, slowest beans:\n{}", uptime,
+                    slowestBeans(((BufferingApplicationStartup) applicationStartup).drainBufferedTimeline()));
+        } else {
+            log.info("Ready {} ms after the JVM started", uptime);
+        }
+        if (properties.isExitWhenReady()) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    private String slowestBeans(StartupTimeline timeline) {
+        return timeline.getEvents().stream()
+                .filter(event -> BEAN_INSTANTIATION.equals(event.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(properties.getReportedBeans())
+                .map(event -> String.format("  %6d ms  %s", event.getDuration().toMillis(), beanName(event)))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String beanName(StartupTimeline.TimelineEvent event) {
+        for (StartupStep.Tag tag : event.getStartupStep().getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return event.getStartupStep().getName();
+    }
+}
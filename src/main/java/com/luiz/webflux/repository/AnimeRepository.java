@@ -1,9 +1,51 @@
 package com.luiz.webflux.repository;
 
 import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.domain.AnimeVersion;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface AnimeRepository extends ReactiveCrudRepository<Anime, Integer> {
+import java.time.Instant;
+
+public interface AnimeRepository extends ReactiveCrudRepository<Anime, Integer>, AnimeRepositoryCustom {
     Mono<Anime> findById(int id);
+
+    @Query("SELECT * FROM anime WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Anime> findPage(int after, int limit);
+
+    /**
+     * Animes with a word similar to the query, best match first. Served by the pg_trgm GIN index of db/002-anime-name-trigram.sql.
+     * Postgres only: the in-process H2 database of the tests has no pg_trgm, so the tests stub this query
+     */
+    @Query("SELECT * FROM anime WHERE :query <% name ORDER BY word_similarity(:query, name) DESC, similarity(:query, name) DESC, id LIMIT :limit")
+    Flux<Anime> search(String query, int limit);
+
+    @Query("SELECT * FROM anime WHERE updated_at > :since")
+    Flux<Anime> findUpdatedSince(Instant since);
+
+    @Query("SELECT version, updated_at FROM anime WHERE id = :id")
+    Mono<AnimeVersion> findVersionById(int id);
+
+    @Query("SELECT COUNT(*) AS count, COALESCE(MAX(id), 0) AS max_id, CAST(COALESCE(SUM(version), 0) AS BIGINT) AS version_sum FROM anime")
+    Mono<AnimeListVersion> findListVersion();
+
+    @Modifying
+    @Query("UPDATE anime SET name = :name, version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = :id")
+    Mono<Integer> updateName(int id, String name);
+
+    @Modifying
+    @Query("UPDATE anime SET name = :name, version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = :id AND version = :version")
+    Mono<Integer> updateNameIfVersion(int id, String name, long version);
+
+    @Modifying
+    @Query("DELETE FROM anime WHERE id = :id")
+    Mono<Integer> deleteAnime(int id);
+
+    @Modifying
+    @Query("DELETE FROM anime WHERE id = :id AND version = :version")
+    Mono<Integer> deleteAnimeIfVersion(int id, long version);
 }
@@ -0,0 +1,19 @@
+package com.luiz.webflux.repository;
+
+import com.luiz.webflux.domain.Anime;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface AnimeRepositoryCustom {
+    /**
+     * Streams every anime with id greater than after, ordered by id, fetching fetchSize rows per round trip
+     */
+    Flux<Anime> streamAll(int after, int fetchSize);
+
+    /**
+     * Inserts all animes with one multi-row statement and returns them with their generated ids, in the same order.
+     * One bind parameter per anime, so at most 65535 animes, the Postgres limit
+     */
+    Flux<Anime> insertAll(List<Anime> animes);
+}
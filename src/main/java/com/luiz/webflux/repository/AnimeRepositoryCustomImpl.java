@@ -0,0 +1,51 @@
+package com.luiz.webflux.repository;
+
+import com.luiz.webflux.domain.Anime;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+@RequiredArgsConstructor
+public class AnimeRepositoryCustomImpl implements AnimeRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<Anime> streamAll(int after, int fetchSize) {
+        // the bind parameter keeps the statement on the extended protocol, which is where fetchSize is honored
+        return template.getDatabaseClient()
+                .sql("SELECT * FROM anime WHERE id > :after ORDER BY id")
+                .bind("after", after)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> template.getConverter().read(Anime.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<Anime> insertAll(List<Anime> animes) {
+        if (animes.isEmpty()) {
+            return Flux.empty();
+        }
+        // one multi-row INSERT: a single round trip for the whole chunk, which is written or rejected as a whole
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 1; i <= animes.size(); i++) {
+            values.add("($" + i + ")");
+        }
+        return template.getDatabaseClient().inConnectionMany(connection -> {
+            Statement statement = connection.createStatement("INSERT INTO anime (name) VALUES " + values)
+                    .returnGeneratedValues("id");
+            for (int i = 0; i < animes.size(); i++) {
+                statement.bind(i, animes.get(i).getName());
+            }
+            // the sequence hands out the ids in the order of the values, whatever order the rows come back in
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get("id", Integer.class)))
+                    .collectSortedList()
+                    .flatMapMany(ids -> Flux.fromIterable(animes).zipWithIterable(ids, Anime::withId));
+        });
+    }
+}
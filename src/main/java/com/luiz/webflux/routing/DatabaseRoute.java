@@ -0,0 +1,25 @@
+package com.luiz.webflux.routing;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Marks the database operations of a reactive chain as read-only, so they may be served by a replica:
+ * {@code repository.findAll().contextWrite(DatabaseRoute::readOnly)}.
+ * Unmarked operations are treated as writes and go to the primary.
+ */
+public final class DatabaseRoute {
+
+    private static final String READ_ONLY = DatabaseRoute.class.getName() + ".READ_ONLY";
+
+    private DatabaseRoute() {
+    }
+
+    public static Context readOnly(Context context) {
+        return context.put(READ_ONLY, Boolean.TRUE);
+    }
+
+    public static boolean isReadOnly(ContextView context) {
+        return context.hasKey(READ_ONLY);
+    }
+}
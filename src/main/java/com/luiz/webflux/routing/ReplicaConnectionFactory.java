@@ -0,0 +1,105 @@
+package com.luiz.webflux.routing;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads connection requests over the replica pools.
+ */
+public class ReplicaConnectionFactory implements ConnectionFactory, Disposable {
+
+    public enum Balancing {
+        ROUND_ROBIN,
+        /**
+         * The pool with the fewest callers waiting for a connection, then with the fewest connections in use
+         */
+        LEAST_PENDING
+    }
+
+    private final List<ConnectionFactory> replicas;
+    private final List<Optional<PoolMetrics>> metrics;
+    private final Balancing balancing;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaConnectionFactory(List<? extends ConnectionFactory> replicas, Balancing balancing) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.metrics = this.replicas.stream()
+                .map(ReplicaConnectionFactory::poolMetrics)
+                .collect(Collectors.toList());
+        this.balancing = balancing;
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> Mono.from(replicas.get(select()).create()));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return replicas.get(0).getMetadata();
+    }
+
+    public List<ConnectionFactory> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void dispose() {
+        replicas.stream()
+                .filter(Disposable.class::isInstance)
+                .forEach(replica -> ((Disposable) replica).dispose());
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return replicas.stream().allMatch(replica -> replica instanceof Disposable && ((Disposable) replica).isDisposed());
+    }
+
+    private int select() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        if (balancing == Balancing.ROUND_ROBIN || size == 1) {
+            return start;
+        }
+        // scanning from the round-robin position spreads the ties
+        int selected = start;
+        long lowestLoad = load(start);
+        for (int offset = 1; offset < size; offset++) {
+            int candidate = (start + offset) % size;
+            long load = load(candidate);
+            if (load < lowestLoad) {
+                selected = candidate;
+                lowestLoad = load;
+            }
+        }
+        return selected;
+    }
+
+    private long load(int replica) {
+        return metrics.get(replica)
+                .map(pool -> ((long) pool.pendingAcquireSize() << 32) + pool.acquiredSize())
+                .orElse(0L);
+    }
+
+    private static Optional<PoolMetrics> poolMetrics(ConnectionFactory connectionFactory) {
+        Object target = connectionFactory;
+        while (!(target instanceof ConnectionPool) && target instanceof Wrapped) {
+            target = ((Wrapped<?>) target).unwrap();
+        }
+        return target instanceof ConnectionPool ? ((ConnectionPool) target).getMetrics() : Optional.empty();
+    }
+}
@@ -0,0 +1,86 @@
+package com.luiz.webflux.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.luiz.webflux.config.DatabaseProperties;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Sends operations marked with {@link DatabaseRoute#readOnly} to the replicas and everything else to the primary.
+ * After a write, the reads of the same user stay on the primary for the read-your-writes window,
+ * so they see their own changes whatever the replica lag.
+ */
+public class RoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private static final Mono<Object> PRIMARY_ROUTE = Mono.just(PRIMARY);
+    private static final Mono<Object> REPLICA_ROUTE = Mono.just(REPLICA);
+
+    private final boolean replicated;
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * @param replica may be null, every operation then goes to the primary
+     */
+    public RoutingConnectionFactory(ConnectionFactory primary, ConnectionFactory replica, DatabaseProperties.Routing routing) {
+        this.replicated = replica != null;
+        this.recentWriters = routing.getReadYourWrites().isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(routing.getMaximumWriters())
+                .expireAfterWrite(routing.getReadYourWrites())
+                .build();
+        setTargetConnectionFactories(Map.of(PRIMARY, primary, REPLICA, replicated ? replica : primary));
+        setDefaultTargetConnectionFactory(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        if (!replicated) {
+            return PRIMARY_ROUTE;
+        }
+        return Mono.deferContextual(context -> DatabaseRoute.isReadOnly(context) ? readRoute() : writeRoute());
+    }
+
+    /**
+     * Where the read-only operations of the current chain go, for a load that runs detached from the chain:
+     * false for unmarked operations, without replica, or for a user inside the read-your-writes window
+     */
+    public Mono<Boolean> readsFromReplica() {
+        return Mono.deferContextual(context -> replicated && DatabaseRoute.isReadOnly(context)
+                ? readRoute().map(REPLICA::equals)
+                : Mono.just(false));
+    }
+
+    private Mono<Object> readRoute() {
+        if (recentWriters == null) {
+            return REPLICA_ROUTE;
+        }
+        return currentUser()
+                .filter(user -> recentWriters.getIfPresent(user) != null)
+                .flatMap(user -> PRIMARY_ROUTE)
+                .switchIfEmpty(REPLICA_ROUTE);
+    }
+
+    private Mono<Object> writeRoute() {
+        if (recentWriters == null) {
+            return PRIMARY_ROUTE;
+        }
+        return currentUser()
+                .doOnNext(user -> recentWriters.put(user, Boolean.TRUE))
+                .then(PRIMARY_ROUTE);
+    }
+
+    private Mono<String> currentUser() {
+        return ReactiveSecurityContextHolder.getContext()
+                .flatMap(securityContext -> Mono.justOrEmpty(securityContext.getAuthentication()))
+                .map(Authentication::getName);
+    }
+}
@@ -0,0 +1,161 @@
+package com.luiz.webflux.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.luiz.webflux.config.RateLimitProperties;
+import com.luiz.webflux.domain.Role;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Token buckets per user and route, so a single client cannot take the whole service or the database pool.
+ * Runs in the security chain once the user is known, requests without an authenticated user are not limited.
+ * A rejected request gets 429 with the seconds until a token is available in Retry-After.
+ */
+public class RateLimitWebFilter implements WebFilter {
+
+    private static final Role[] HIGHEST_FIRST = {Role.ADMIN, Role.USER};
+
+    private final List<Route> routes;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitWebFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new Route(route, meterRegistry))
+                .collect(Collectors.toList());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumBuckets())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Route route = route(exchange.getRequest());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(authentication -> waitNanos(route, authentication))
+                .defaultIfEmpty(0L)
+                .flatMap(waitNanos -> waitNanos == 0 ? chain.filter(exchange) : reject(exchange, route, waitNanos));
+    }
+
+    private Route route(ServerHttpRequest request) {
+        for (Route route : routes) {
+            if (route.matches(request)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a token from the bucket of the user on the route, 0 when it had one
+     */
+    private long waitNanos(Route route, Authentication authentication) {
+        for (Role role : HIGHEST_FIRST) {
+            if (authentication.getAuthorities().contains(role.getAuthority())) {
+                RateLimitProperties.Limit limit = route.limits.get(role);
+                if (limit == null) {
+                    return 0;
+                }
+                // the role is part of the key, a user whose roles change starts a bucket with the new limit
+                String key = route.name + ':' + role + ':' + authentication.getName();
+                return buckets.get(key, k -> new TokenBucket(limit)).take(System.nanoTime());
+            }
+        }
+        return 0;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, Route route, long waitNanos) {
+        route.rejections.increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+        return response.setComplete();
+    }
+
+    private static final class Route {
+
+        private final String name;
+        private final HttpMethod method;
+        private final PathPattern path;
+        private final Map<Role, RateLimitProperties.Limit> limits;
+        private final Counter rejections;
+
+        private Route(RateLimitProperties.Route route, MeterRegistry meterRegistry) {
+            this.name = route.getName();
+            this.method = route.getMethod();
+            this.path = PathPatternParser.defaultInstance.parse(route.getPath());
+            this.limits = route.getLimits();
+            this.rejections = Counter.builder("rate.limit.rejections")
+                    .description("Requests answered with 429 because the user ran out of tokens")
+                    .tag("route", route.getName())
+                    .register(meterRegistry);
+        }
+
+        boolean matches(ServerHttpRequest request) {
+            return (method == null || method == request.getMethod())
+                    && path.matches(request.getPath().pathWithinApplication());
+        }
+    }
+
+    /**
+     * Lock-free token bucket: a single timestamp at which the bucket is full again, every token taken moves it
+     * one interval later. A request fits while that stays within capacity intervals from now.
+     */
+    static final class TokenBucket {
+
+        private final long interval;
+        private final long burst;
+        private final AtomicLong fullAt;
+
+        TokenBucket(RateLimitProperties.Limit limit) {
+            this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRate());
+            this.burst = interval * limit.getCapacity();
+            this.fullAt = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * Nanoseconds until a token is available, 0 when one was taken
+         */
+        long take(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + interval;
+                if (next - now > burst) {
+                    return next - now - burst;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.luiz.webflux.security;
+
+import com.luiz.webflux.config.AuthProperties;
+import com.luiz.webflux.domain.TokenResponse;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies short-lived HS256 tokens carrying the roles of the authenticated user,
+ * so requests presenting them need neither a user lookup nor a password hash.
+ */
+public class TokenService {
+
+    public static final String ROLES_CLAIM = "roles";
+
+    private final SecretKey key;
+    private final MACSigner signer;
+    private final Duration ttl;
+    private final String issuer;
+    private final Clock clock;
+
+    public TokenService(byte[] secret, AuthProperties.Token properties, Clock clock) {
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+        try {
+            this.signer = new MACSigner(key);
+        } catch (JOSEException e) {
+            throw new IllegalArgumentException("The token secret must have at least 32 bytes", e);
+        }
+        this.ttl = properties.getTtl();
+        this.issuer = properties.getIssuer();
+        this.clock = clock;
+    }
+
+    public TokenResponse issue(Authentication authentication) {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(ttl);
+        List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(authentication.getName())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(expiresAt))
+                .claim(ROLES_CLAIM, roles)
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not sign the token", e);
+        }
+        return new TokenResponse(jwt.serialize(), "Bearer", expiresAt);
+    }
+
+    /**
+     * Checks the signature, the expiry and that the token was issued here
+     */
+    public ReactiveJwtDecoder decoder() {
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withSecretKey(key)
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+        return decoder;
+    }
+}
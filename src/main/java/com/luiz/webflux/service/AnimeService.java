@@ -1,59 +1,262 @@
 package com.luiz.webflux.service;
 
+import com.luiz.webflux.cache.AnimeCache;
+import com.luiz.webflux.cache.AnimeSnapshot;
+import com.luiz.webflux.cache.SingleFlight;
+import com.luiz.webflux.config.AnimeProperties;
 import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeBatchProgress;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.domain.AnimePage;
+import com.luiz.webflux.domain.AnimeVersion;
+import com.luiz.webflux.exception.ErrorTrace;
+import com.luiz.webflux.exception.NotFoundException;
+import com.luiz.webflux.metrics.AnimeMetrics;
 import com.luiz.webflux.repository.AnimeRepository;
+import com.luiz.webflux.routing.DatabaseRoute;
 import io.netty.util.internal.StringUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AnimeService {
 
+    private static final String ALL = "all";
+
     private final AnimeRepository animeRepository;
+    private final AnimeProperties animeProperties;
+    private final AnimeCache animeCache;
+    private final AnimeSnapshot animeSnapshot;
+    private final SingleFlight singleFlight;
+    private final AnimeMetrics animeMetrics;
+    /**
+     * Instead of @Transactional, whose class proxy a native image cannot create
+     */
+    private final TransactionalOperator transactionalOperator;
 
+    /**
+     * Never coalesced: a shared load would buffer the whole catalog for the callers that join late,
+     * while each call streams its own query at the pace of its client
+     */
     public Flux<Anime> findAll() {
-        return animeRepository.findAll();
+        return animeMetrics.timed("findAll", animeSnapshot.findAll(animeRepository::findAll)
+                .contextWrite(DatabaseRoute::readOnly));
+    }
+
+    public Mono<AnimePage> findPage(Integer after, Integer limit) {
+        if (limit != null && limit < 1) {
+            return animeMetrics.timed("findPage",
+                    Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be greater than zero")));
+        }
+        int pageSize = pageSize(limit);
+        // one extra row tells us whether there is a next page without a count query
+        return animeMetrics.timed("findPage", animeRepository.findPage(after == null ? 0 : after, pageSize + 1)
+                .collectList()
+                .map(animes -> toPage(animes, pageSize))
+                .contextWrite(DatabaseRoute::readOnly));
+    }
+
+    public Flux<Anime> stream(Integer after) {
+        int fetchSize = animeProperties.getPagination().getStreamFetchSize();
+        return animeMetrics.timed("stream", animeRepository.streamAll(after == null ? 0 : after, fetchSize)
+                .limitRate(fetchSize)
+                .contextWrite(DatabaseRoute::readOnly));
+    }
+
+    /**
+     * Streams the best matches as the database ranks them, the query never loads the whole catalog
+     */
+    public Flux<Anime> search(String query, Integer limit) {
+        AnimeProperties.Search search = animeProperties.getSearch();
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.length() < search.getMinQueryLength()) {
+            return animeMetrics.timed("search", Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query must have at least " + search.getMinQueryLength() + " characters")));
+        }
+        if (limit != null && limit < 1) {
+            return animeMetrics.timed("search",
+                    Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be greater than zero")));
+        }
+        int resultSize = limit == null ? search.getDefaultLimit() : Math.min(limit, search.getMaxLimit());
+        return animeMetrics.timed("search", animeRepository.search(trimmed, resultSize)
+                .contextWrite(DatabaseRoute::readOnly));
     }
 
+    /**
+     * Cache loads run detached from the caller and read the primary: a row loaded from a lagging replica
+     * would be served for the whole cache TTL. Only uncached lookups go to a replica.
+     */
     public Mono<Anime> findById(int id) {
-        return animeRepository.findById(id)
-                .switchIfEmpty(monoResponseStatusNotFoundException());
+        return animeMetrics.timed("findById", find(id)
+                .contextWrite(DatabaseRoute::readOnly));
     }
 
+    /**
+     * Answered from the cache when the anime is there, otherwise with a query that skips the other columns
+     */
+    public Mono<AnimeVersion> findVersion(int id) {
+        return animeMetrics.timed("findVersion", animeSnapshot.findVersion(id, () -> animeCache.getIfPresent(id)
+                        .map(AnimeVersion::of)
+                        .switchIfEmpty(Mono.defer(() -> singleFlight.mono("findVersion", id, () -> animeRepository.findVersionById(id)))))
+                .switchIfEmpty(monoResponseStatusNotFoundException())
+                .contextWrite(DatabaseRoute::readOnly));
+    }
+
+    public Mono<AnimeListVersion> findListVersion() {
+        return animeMetrics.timed("findListVersion", animeSnapshot.findListVersion(() -> singleFlight.mono("findListVersion", ALL, animeRepository::findListVersion))
+                .contextWrite(DatabaseRoute::readOnly));
+    }
+
+    /**
+     * The list version from the snapshot or the cache, queried at most once per cache TTL.
+     * It can be older than the list, which only costs a client its next revalidation, never a stale copy
+     */
+    public Mono<AnimeListVersion> findRecentListVersion() {
+        return animeMetrics.timed("findRecentListVersion", animeSnapshot.findListVersion(() -> animeCache.getListVersion(
+                        () -> singleFlight.mono("findListVersion", ALL, animeRepository::findListVersion))));
+    }
+
+    /**
+     * Built when the anime turns out to be missing, not when the chain is assembled
+     */
     public <T> Mono<T> monoResponseStatusNotFoundException() {
-        return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
+        return Mono.deferContextual(context -> Mono.error(new NotFoundException("Anime not found", ErrorTrace.isRequested(context))));
     }
 
     public Mono<Anime> save(Anime anime) {
-        return animeRepository.save(anime);
+        return animeMetrics.timed("save", animeRepository.save(anime)
+                .doOnNext(saved -> invalidate(saved.getId()))
+                .flatMap(saved -> animeSnapshot.apply(List.of(saved)).thenReturn(saved)));
     }
 
+    /**
+     * A single UPDATE that bumps the version. When the anime carries a version, the update only applies
+     * to that version and a newer one on the database fails with 409
+     */
     public Mono<Void> update(Anime anime) {
-        return findById(anime.getId())
-                .flatMap(validAnime -> animeRepository.save(anime))
-                .then();
+        Mono<Integer> updated = anime.getVersion() == null
+                ? animeRepository.updateName(anime.getId(), anime.getName())
+                : animeRepository.updateNameIfVersion(anime.getId(), anime.getName(), anime.getVersion());
+        return animeMetrics.timed("update", updated
+                .flatMap(rows -> written(rows, anime.getId(), anime.getVersion()))
+                .then(Mono.fromRunnable(() -> invalidate(anime.getId())))
+                .then(animeSnapshot.applyUpdate(anime)));
     }
 
     public Mono<Void> delete(int id) {
-        return findById(id)
-                .flatMap(animeRepository::delete);
+        return delete(id, null);
+    }
 
+    /**
+     * A single DELETE, applied only to the given version when there is one
+     */
+    public Mono<Void> delete(int id, Long version) {
+        Mono<Integer> deleted = version == null
+                ? animeRepository.deleteAnime(id)
+                : animeRepository.deleteAnimeIfVersion(id, version);
+        return animeMetrics.timed("delete", deleted
+                .flatMap(rows -> written(rows, id, version))
+                .then(Mono.fromRunnable(() -> invalidate(id)))
+                .then(animeSnapshot.remove(id)));
     }
 
-    @Transactional
+    /**
+     * The snapshot gets the animes once the transaction commits, a rollback never reaches it
+     */
     public Flux<Anime> saveAll(List<Anime> animes) {
-        return animeRepository.saveAll(animes)
-                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName);
+        int chunkSize = animeProperties.getBatch().getChunkSize();
+        return animeMetrics.timed("saveAll", Flux.defer(() -> {
+            List<Anime> inserted = new ArrayList<>(animes.size());
+            return transactionalOperator.transactional(
+                    Mono.fromRunnable(() -> animes.forEach(this::throwResponseStatusExceptionWhenEmptyName))
+                            .thenMany(Flux.fromIterable(animes)
+                                    .buffer(chunkSize)
+                                    .concatMap(animeRepository::insertAll))
+                            .doOnNext(saved -> invalidate(saved.getId())))
+                    .doOnNext(inserted::add)
+                    .concatWith(Mono.defer(() -> animeSnapshot.apply(inserted)).then(Mono.empty()));
+        }));
+    }
+
+    /**
+     * Writes an unbounded stream of animes in chunks, keeping at most ingestConcurrency chunks in memory.
+     * Each chunk is one statement, written or rejected as a whole. Once a chunk fails no other chunk starts,
+     * the chunks already being written finish and are reported, then the ingest fails: every reported chunk
+     * is saved and nothing else is.
+     */
+    public Flux<AnimeBatchProgress> ingest(Flux<Anime> animes) {
+        AnimeProperties.Batch batch = animeProperties.getBatch();
+        AtomicLong total = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean();
+        return animeMetrics.timed("ingest", animes
+                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName)
+                .buffer(batch.getChunkSize())
+                .index()
+                .takeWhile(chunk -> !failed.get())
+                .flatMapSequentialDelayError(chunk -> animeRepository.insertAll(chunk.getT2())
+                                .doOnNext(saved -> invalidate(saved.getId()))
+                                .collectList()
+                                .flatMap(saved -> animeSnapshot.apply(saved)
+                                        .thenReturn(new AnimeBatchProgress(chunk.getT1(), saved.size(), 0)))
+                                .doOnError(error -> failed.set(true)),
+                        batch.getIngestConcurrency(), 1)
+                .doOnNext(progress -> progress.setTotal(total.addAndGet(progress.getSaved()))));
+    }
+
+    private Mono<Void> written(int rows, int id, Long version) {
+        if (rows > 0) {
+            return Mono.empty();
+        }
+        if (version == null) {
+            return monoResponseStatusNotFoundException();
+        }
+        // only a failed conditional write pays for a second query, to tell a stale version from a missing anime
+        return animeRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, "Anime was modified by another request"))
+                        : monoResponseStatusNotFoundException());
+    }
+
+    private void invalidate(int id) {
+        animeCache.invalidate(id);
+        animeCache.invalidateListVersion();
+        singleFlight.forget("findById", id);
+        singleFlight.forget("findVersion", id);
+        singleFlight.forget("findListVersion", ALL);
+    }
+
+    private Mono<Anime> find(int id) {
+        return animeSnapshot.findById(id, () -> animeCache.get(id, () -> singleFlight.mono("findById", id, () -> animeRepository.findById(id))))
+                .switchIfEmpty(monoResponseStatusNotFoundException());
+    }
+
+    private int pageSize(Integer limit) {
+        AnimeProperties.Pagination pagination = animeProperties.getPagination();
+        if (limit == null) {
+            return pagination.getDefaultLimit();
+        }
+        return Math.min(limit, pagination.getMaxLimit());
+    }
+
+    private AnimePage toPage(List<Anime> animes, int pageSize) {
+        if (animes.size() <= pageSize) {
+            return new AnimePage(animes, null);
+        }
+        List<Anime> content = animes.subList(0, pageSize);
+        return new AnimePage(content, content.get(pageSize - 1).getId());
     }
 
     private void throwResponseStatusExceptionWhenEmptyName(Anime anime) {
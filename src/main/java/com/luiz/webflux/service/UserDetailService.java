@@ -1,21 +1,53 @@
 package com.luiz.webflux.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.luiz.webflux.cache.Caches;
+import com.luiz.webflux.config.AuthProperties;
 import com.luiz.webflux.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
 @Service
 public class UserDetailService implements ReactiveUserDetailsService {
 
     private final UserRepository userRepository;
+    private final boolean cacheEnabled;
+    private final AsyncCache<String, UserDetails> cache;
+
+    /**
+     * Takes the registry instead of being a MeterBinder: binders are created with the registry, and the repository
+     * of a binder would need the connection pool, whose metrics need the registry
+     */
+    public UserDetailService(UserRepository userRepository, AuthProperties authProperties, MeterRegistry meterRegistry) {
+        AuthProperties.Cache properties = authProperties.getCache();
+        this.userRepository = userRepository;
+        this.cacheEnabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
 
     @Override
     public Mono<UserDetails> findByUsername(String s) {
-        return userRepository.findByUsername(s)
+        if (!cacheEnabled) {
+            return loadByUsername(s);
+        }
+        return Caches.get(cache, s, () -> loadByUsername(s));
+    }
+
+    /**
+     * From the primary: a lagging replica would keep an old password or role cached for the whole expiry
+     */
+    private Mono<UserDetails> loadByUsername(String username) {
+        return userRepository.findByUsername(username)
                 .cast(UserDetails.class);
     }
 }
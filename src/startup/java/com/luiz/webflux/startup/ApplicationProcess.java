@@ -0,0 +1,107 @@
+package com.luiz.webflux.startup;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application started in its own process, on a free port and with its output in a log file,
+ * timed from the launch to its first answered request
+ */
+class ApplicationProcess implements AutoCloseable {
+
+    private static final String USERNAME = "luiz";
+    private static final String PASSWORD = "devdojo";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private final String name;
+    private final Path log;
+    private final HttpRequest firstRequest;
+    private final long start;
+    private final Process process;
+
+    private ApplicationProcess(String name, Path log, int port, Process process, long start) {
+        this.name = name;
+        this.log = log;
+        // listing every anime takes the ADMIN role
+        this.firstRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/anime"))
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((USERNAME + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        this.process = process;
+        this.start = start;
+    }
+
+    /**
+     * Appends --server.port to the command
+     */
+    static ApplicationProcess start(String name, List<String> command, Path directory, Path log) throws IOException {
+        int port = freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(withPort)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        return new ApplicationProcess(name, log, port, process, start);
+    }
+
+    long awaitFirstRequest(Duration timeout) throws InterruptedException {
+        while (System.nanoTime() - start < timeout.toNanos()) {
+            Assertions.assertTrue(process.isAlive(), () -> name + " exited with " + process.exitValue() + ", see " + log);
+            try {
+                HttpResponse<Void> response = CLIENT.send(firstRequest, HttpResponse.BodyHandlers.discarding());
+                Assertions.assertEquals(200, response.statusCode(), () -> name + " answered the first request with " + response.statusCode());
+                return (System.nanoTime() - start) / 1_000_000;
+            } catch (IOException notListening) {
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+        }
+        return Assertions.fail(name + " did not answer within " + timeout + ", see " + log);
+    }
+
+    /**
+     * Resident set size as Linux reports it
+     */
+    long residentSetKilobytes() throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(process.pid()), "status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        throw new IllegalStateException("No resident set size for " + name);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(STOP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.luiz.webflux.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the native executable against the in-process database and compares it with the JVM build of the same code:
+ * time from the launch to the first answered request, and resident memory once it is answered.
+ * Runs after the native profile built the executable. EmbeddedDatabaseConfig is not part of either build,
+ * so H2 runs the schema and data scripts itself when the first connection opens.
+ */
+@Slf4j
+class NativeImageIT {
+
+    private final Path executable = Paths.get(System.getProperty("native.executable", "target/spring-webflux-essentials"));
+    private final Path jvmJar = Paths.get(System.getProperty("native.jvm-jar", "target/spring-webflux-essentials-0.0.1-SNAPSHOT-exec.jar"));
+    private final Path databaseScripts = Paths.get(System.getProperty("native.database-scripts", "src/test/resources/db"));
+    private final Path directory = Paths.get(System.getProperty("native.directory", "target/native"));
+    private final int runs = Integer.getInteger("native.runs", 3);
+    private final Duration timeout = Duration.parse(System.getProperty("native.timeout", "PT2M"));
+
+    @Test
+    @DisplayName("the native executable answers requests, sooner and in less memory than the JVM build")
+    public void firstRequest_AnsweredSoonerInLessMemory_WhenNativeExecutable() throws Exception {
+        Files.createDirectories(directory);
+        Map<Build, List<Long>> millis = new EnumMap<>(Build.class);
+        Map<Build, List<Long>> residentMegabytes = new EnumMap<>(Build.class);
+        // the builds take turns, so a slower phase of the machine does not weigh on one of them only
+        for (int run = 0; run < runs; run++) {
+            for (Build build : Build.values()) {
+                Path log = directory.resolve(build.name().toLowerCase() + "-" + run + ".log");
+                try (ApplicationProcess application = ApplicationProcess.start(build.name(), command(build), directory, log)) {
+                    millis.computeIfAbsent(build, key -> new ArrayList<>()).add(application.awaitFirstRequest(timeout));
+                    residentMegabytes.computeIfAbsent(build, key -> new ArrayList<>()).add(application.residentSetKilobytes() / 1024);
+                }
+            }
+        }
+        Map<Build, Result> results = new EnumMap<>(Build.class);
+        millis.forEach((build, samples) -> results.put(build, Result.of(samples, residentMegabytes.get(build))));
+        results.forEach((build, result) -> log.info("{} first request after {} ms, {} MB resident (medians), runs {} ms, {} MB",
+                build, result.getMedianMillis(), result.getMedianResidentMegabytes(), result.getMillis(), result.getResidentMegabytes()));
+
+        Path report = directory.resolve("report.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), results);
+
+        Result nativeImage = results.get(Build.NATIVE);
+        Result jvm = results.get(Build.JVM);
+        Assertions.assertTrue(nativeImage.getMedianMillis() < jvm.getMedianMillis(),
+                () -> "The native executable did not answer sooner than the JVM build, see " + report);
+        Assertions.assertTrue(nativeImage.getMedianResidentMegabytes() < jvm.getMedianResidentMegabytes(),
+                () -> "The native executable did not use less memory than the JVM build, see " + report);
+    }
+
+    private List<String> command(Build build) {
+        List<String> command = new ArrayList<>();
+        if (build == Build.NATIVE) {
+            command.add(executable.toAbsolutePath().toString());
+        } else {
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-jar");
+            command.add(jvmJar.toAbsolutePath().toString());
+        }
+        command.add("--spring.r2dbc.url=" + EmbeddedDatabaseConfig.H2_URL + ";INIT="
+                + runScript(databaseScripts.resolve("schema.sql")) + "%5C;" + runScript(databaseScripts.resolve("data.sql")));
+        command.add("--spring.r2dbc.username=sa");
+        command.add("--spring.r2dbc.password=");
+        command.add("--rate-limit.enabled=false");
+        return command;
+    }
+
+    /**
+     * The URL is parsed as a URI, so spaces and quotes are escaped, and so is the backslash that keeps H2 from
+     * reading the semicolon between two scripts as the end of the INIT setting
+     */
+    private static String runScript(Path script) {
+        return ("RUNSCRIPT FROM '" + script.toAbsolutePath() + "'").replace(" ", "%20").replace("'", "%27");
+    }
+
+    private enum Build {
+        JVM,
+        NATIVE
+    }
+
+    @Value
+    static class Result {
+        long medianMillis;
+        long medianResidentMegabytes;
+        List<Long> millis;
+        List<Long> residentMegabytes;
+
+        static Result of(List<Long> millis, List<Long> residentMegabytes) {
+            return new Result(median(millis), median(residentMegabytes), millis, residentMegabytes);
+        }
+
+        private static long median(List<Long> samples) {
+            List<Long> sorted = new ArrayList<>(samples);
+            sorted.sort(null);
+            return sorted.get(sorted.size() / 2);
+        }
+    }
+}
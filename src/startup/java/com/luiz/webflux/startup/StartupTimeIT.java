@@ -0,0 +1,119 @@
+package com.luiz.webflux.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.luiz.webflux.SpringWebFluxEssentialsApplication;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import io.r2dbc.h2.H2ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.h2.Driver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the packaged application in its own JVM, as an instance added during a spike starts, and measures the time
+ * from launching the JVM to the first answered request. Runs against the in-process database, after the fast-startup
+ * profile packaged the application and built its CDS archive.
+ */
+@Slf4j
+class StartupTimeIT {
+
+    private final Path directory = Paths.get(System.getProperty("startup.directory", "target/fast-startup"));
+    private final String jar = System.getProperty("startup.jar");
+    private final String testClasses = System.getProperty("startup.test-classes", "target/test-classes");
+    private final int runs = Integer.getInteger("startup.runs", 3);
+    private final Duration budget = Duration.parse(System.getProperty("startup.budget", "PT20S"));
+    private final Duration timeout = Duration.parse(System.getProperty("startup.timeout", "PT2M"));
+
+    @Test
+    @DisplayName("the first request is answered within the budget, and sooner with the CDS archive than without it")
+    public void firstRequest_AnsweredWithinBudget_WhenStartedWithCdsArchive() throws Exception {
+        Map<Variant, List<Long>> samples = new EnumMap<>(Variant.class);
+        // the variants take turns, so a slower phase of the machine does not weigh on one of them only
+        for (int run = 0; run < runs; run++) {
+            for (Variant variant : Variant.values()) {
+                samples.computeIfAbsent(variant, key -> new ArrayList<>()).add(timeToFirstRequest(variant, run));
+            }
+        }
+        Map<Variant, Result> results = new EnumMap<>(Variant.class);
+        samples.forEach((variant, millis) -> results.put(variant, Result.of(millis)));
+        results.forEach((variant, result) -> log.info("{} first request after {} ms (median), runs {}", variant,
+                result.getMedianMillis(), result.getMillis()));
+
+        Path report = directory.resolve("startup-report.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), results);
+
+        long cds = results.get(Variant.FAST_STARTUP_CDS).getMedianMillis();
+        Assertions.assertTrue(cds <= budget.toMillis(), () -> "First request after " + cds + " ms, the budget is " + budget);
+        Assertions.assertTrue(cds < results.get(Variant.DEFAULT).getMedianMillis(),
+                () -> "The CDS archive did not make the first request sooner, see " + report);
+    }
+
+    private long timeToFirstRequest(Variant variant, int run) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(variant.jvmArguments);
+        command.add("-cp");
+        // the archive only maps the classes of a class path that starts like the one it was dumped with,
+        // what follows sets up the in-process database through EmbeddedDatabaseConfig
+        command.add(String.join(File.pathSeparator, jar, location(Driver.class), location(H2ConnectionFactory.class),
+                location(TestConfiguration.class), Paths.get(testClasses).toAbsolutePath().toString()));
+        command.add(SpringWebFluxEssentialsApplication.class.getName());
+        command.add("--spring.r2dbc.url=" + EmbeddedDatabaseConfig.H2_URL);
+        command.add("--spring.r2dbc.username=sa");
+        command.add("--spring.r2dbc.password=");
+        command.add("--rate-limit.enabled=false");
+        command.addAll(variant.applicationArguments);
+
+        Path log = directory.resolve(variant.name().toLowerCase() + "-" + run + ".log");
+        try (ApplicationProcess application = ApplicationProcess.start(variant.name(), command, directory, log)) {
+            return application.awaitFirstRequest(timeout);
+        }
+    }
+
+    private static String location(Class<?> type) {
+        try {
+            return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException error) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private enum Variant {
+        DEFAULT(List.of(), List.of()),
+        FAST_STARTUP(List.of(), List.of("--spring.profiles.active=fast-startup")),
+        // fails to start instead of running without the archive when it cannot be mapped
+        FAST_STARTUP_CDS(List.of("-Xshare:on", "-XX:SharedArchiveFile=app.jsa"), List.of("--spring.profiles.active=fast-startup"));
+
+        private final List<String> jvmArguments;
+        private final List<String> applicationArguments;
+    }
+
+    @Value
+    static class Result {
+        long medianMillis;
+        List<Long> millis;
+
+        static Result of(List<Long> millis) {
+            List<Long> sorted = new ArrayList<>(millis);
+            sorted.sort(null);
+            return new Result(sorted.get(sorted.size() / 2), millis);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.luiz.webflux.cache;
+
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.repository.AnimeRepository;
+import com.luiz.webflux.util.AnimeCreator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+class AnimeSnapshotTest {
+
+    @Mock
+    private AnimeRepository animeRepository;
+
+    private final AnimeProperties animeProperties = new AnimeProperties();
+
+    private final Anime anime = AnimeCreator.createValidAnime();
+
+    private final Anime second = AnimeCreator.createValidAnime().withId(2).withName("Boku no Hero Academia");
+
+    private AnimeSnapshot animeSnapshot;
+
+    @BeforeEach
+    public void setUp() {
+        animeProperties.getSnapshot().setEnabled(true);
+        animeProperties.getSnapshot().setRefreshInterval(Duration.ofHours(1));
+        BDDMockito.when(animeRepository.streamAll(ArgumentMatchers.eq(0), ArgumentMatchers.anyInt())).thenReturn(Flux.just(second, anime));
+        BDDMockito.when(animeRepository.findUpdatedSince(ArgumentMatchers.any())).thenReturn(Flux.empty());
+        BDDMockito.when(animeRepository.findListVersion()).thenReturn(Mono.just(new AnimeListVersion(2, 2, 0)));
+        animeSnapshot = new AnimeSnapshot(animeRepository, animeProperties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        animeSnapshot.stop();
+    }
+
+    @Test
+    @DisplayName("findAll serves the animes of the snapshot ordered by id once it is loaded")
+    public void findAll_ServesSnapshot_WhenLoaded() {
+        animeSnapshot.start();
+
+        StepVerifier.create(animeSnapshot.findAll(animeRepository::findAll))
+                .expectNext(anime, second)
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).findAll();
+    }
+
+    @Test
+    @DisplayName("findById goes to the loader when the snapshot is disabled")
+    public void findById_CallsLoader_WhenSnapshotIsDisabled() {
+        animeProperties.getSnapshot().setEnabled(false);
+        animeSnapshot.start();
+
+        StepVerifier.create(animeSnapshot.findById(1, () -> Mono.just(second)))
+                .expectNext(second)
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).streamAll(ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("refresh applies the changed animes without going back to an older version")
+    public void refresh_AppliesChanges_WhenAnimesWereUpdated() {
+        Anime updated = anime.withName("Tensei Shitara Slime Datta Ken 2").withVersion(1L);
+        BDDMockito.when(animeRepository.streamAll(ArgumentMatchers.eq(0), ArgumentMatchers.anyInt())).thenReturn(Flux.just(updated));
+        animeSnapshot.start();
+        BDDMockito.when(animeRepository.findUpdatedSince(ArgumentMatchers.any())).thenReturn(Flux.just(anime, second));
+
+        StepVerifier.create(animeSnapshot.refresh().thenMany(animeSnapshot.findAll(Flux::empty)))
+                .expectNext(updated, second)
+                .verifyComplete();
+        StepVerifier.create(animeSnapshot.findListVersion(Mono::empty))
+                .expectNext(new AnimeListVersion(2, 2, 1))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("apply adds the saved animes without a query, before their version and updated_at are read back")
+    public void apply_AddsSavedAnimes_WithoutQuery() {
+        Anime saved = AnimeCreator.createAnimeToBeSaved().withId(3);
+        animeSnapshot.start();
+
+        StepVerifier.create(animeSnapshot.apply(List.of(saved)).thenMany(animeSnapshot.findAll(Flux::empty)))
+                .expectNext(anime, second, saved)
+                .verifyComplete();
+        StepVerifier.create(animeSnapshot.findListVersion(Mono::empty))
+                .expectNext(new AnimeListVersion(3, 3, 0))
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).findUpdatedSince(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("applyUpdate renames the anime one version past the expected one, or past the snapshot one")
+    public void applyUpdate_BumpsVersion_WhenAnimeIsUpdated() {
+        animeSnapshot.start();
+
+        StepVerifier.create(animeSnapshot.applyUpdate(anime.withName("Renamed").withVersion(4L))
+                        .then(animeSnapshot.applyUpdate(second.withName("Renamed too").withVersion(null)))
+                        .thenMany(animeSnapshot.findAll(Flux::empty)))
+                .expectNext(anime.withName("Renamed").withVersion(5L).withUpdatedAt(null),
+                        second.withName("Renamed too").withVersion(1L).withUpdatedAt(null))
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).findUpdatedSince(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("remove takes the anime out of the snapshot")
+    public void remove_TakesAnimeOut_WhenAnimeIsDeleted() {
+        animeSnapshot.start();
+
+        StepVerifier.create(animeSnapshot.remove(1).then(animeSnapshot.findById(1, () -> Mono.just(anime))))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("synchronize reloads the snapshot when it does not match the database, as after a delete by another instance")
+    public void synchronize_Reloads_WhenListVersionDiffers() {
+        animeSnapshot.start();
+        BDDMockito.when(animeRepository.findListVersion()).thenReturn(Mono.just(new AnimeListVersion(1, 2, 0)));
+        BDDMockito.when(animeRepository.streamAll(ArgumentMatchers.eq(0), ArgumentMatchers.anyInt())).thenReturn(Flux.just(second));
+
+        StepVerifier.create(animeSnapshot.synchronize().thenMany(animeSnapshot.findAll(Flux::empty)))
+                .expectNext(second)
+                .verifyComplete();
+    }
+}
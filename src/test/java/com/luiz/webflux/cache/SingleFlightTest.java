@@ -0,0 +1,182 @@
+package com.luiz.webflux.cache;
+
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.config.DatabaseProperties;
+import com.luiz.webflux.routing.DatabaseRoute;
+import com.luiz.webflux.routing.RoutingConnectionFactory;
+import com.luiz.webflux.util.AnimeCreator;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import io.r2dbc.spi.ConnectionFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@ExtendWith(SpringExtension.class)
+class SingleFlightTest {
+
+    private final AnimeProperties animeProperties = new AnimeProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SingleFlight singleFlight = new SingleFlight(animeProperties, meterRegistry, null);
+
+    private final Anime anime = AnimeCreator.createValidAnime();
+
+    private final Sinks.One<Anime> row = Sinks.one();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("mono shares one load between concurrent calls for the same key and counts the coalesced ones")
+    public void mono_SharesLoad_WhenCalledConcurrently() {
+        StepVerifier first = StepVerifier.create(load(1)).expectNext(anime).expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(load(1)).expectNext(anime).expectComplete().verifyLater();
+        row.tryEmitValue(anime);
+
+        first.verify();
+        second.verify();
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, meterRegistry.get(SingleFlight.FLIGHTS).tag("method", "findById").counter().count());
+        Assertions.assertEquals(1, meterRegistry.get(SingleFlight.COALESCED).tag("method", "findById").counter().count());
+    }
+
+    @Test
+    @DisplayName("mono keeps loading for the other callers when one cancels, and cancels the load once all of them left")
+    public void mono_CancelsLoad_OnlyWhenEveryCallerCancelled() {
+        PublisherProbe<Anime> probe = PublisherProbe.of(row.asMono());
+        Disposable first = singleFlight.mono("findById", 1, probe::mono).subscribe();
+        Disposable second = singleFlight.mono("findById", 1, probe::mono).subscribe();
+
+        first.dispose();
+        Assertions.assertFalse(probe.wasCancelled());
+        second.dispose();
+
+        probe.assertWasSubscribed();
+        probe.assertWasCancelled();
+    }
+
+    @Test
+    @DisplayName("mono starts a new load once the previous one completed, nothing is cached")
+    public void mono_LoadsAgain_WhenPreviousLoadCompleted() {
+        StepVerifier.create(singleFlight.mono("findById", 1, () -> Mono.fromSupplier(() -> anime.withVersion((long) loads.incrementAndGet()))))
+                .expectNext(anime.withVersion(1L))
+                .verifyComplete();
+        StepVerifier.create(singleFlight.mono("findById", 1, () -> Mono.fromSupplier(() -> anime.withVersion((long) loads.incrementAndGet()))))
+                .expectNext(anime.withVersion(2L))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("forget makes the next call start its own load instead of joining the one in flight")
+    public void forget_StartsNewLoad_WhenLoadIsInFlight() {
+        StepVerifier first = StepVerifier.create(load(1)).expectNext(anime).expectComplete().verifyLater();
+        singleFlight.forget("findById", 1);
+        StepVerifier second = StepVerifier.create(load(1)).expectNext(anime).expectComplete().verifyLater();
+        row.tryEmitValue(anime);
+
+        first.verify();
+        second.verify();
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("mono keeps only the database route of its callers and shares a load only between callers on the same route")
+    public void mono_KeepsRoute_WhenCallersAreReadOnly() {
+        List<ContextView> contexts = new CopyOnWriteArrayList<>();
+        Supplier<Mono<Anime>> loader = () -> Mono.deferContextual(context -> {
+            contexts.add(context);
+            return row.asMono();
+        });
+        StepVerifier first = StepVerifier.create(singleFlight.mono("findAll", 1, loader)
+                        .contextWrite(DatabaseRoute::readOnly)
+                        .contextWrite(Context.of("caller", "first")))
+                .expectNext(anime).expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(singleFlight.mono("findAll", 1, loader)
+                        .contextWrite(DatabaseRoute::readOnly))
+                .expectNext(anime).expectComplete().verifyLater();
+        StepVerifier primary = StepVerifier.create(singleFlight.mono("findAll", 1, loader))
+                .expectNext(anime).expectComplete().verifyLater();
+        row.tryEmitValue(anime);
+
+        first.verify();
+        second.verify();
+        primary.verify();
+        Assertions.assertEquals(2, contexts.size());
+        Assertions.assertTrue(DatabaseRoute.isReadOnly(contexts.get(0)));
+        Assertions.assertEquals(1, contexts.get(0).size());
+        Assertions.assertTrue(contexts.get(1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("mono reads the primary for a user who just wrote and never shares that load with the replica readers")
+    public void mono_ReadsPrimary_WhenUserWroteInsideTheReadYourWritesWindow() {
+        ConnectionFactory primary = EmbeddedDatabaseConfig.namedDatabase("single_flight_primary");
+        ConnectionFactory replica = EmbeddedDatabaseConfig.namedDatabase("single_flight_replica");
+        RoutingConnectionFactory routing = new RoutingConnectionFactory(primary, replica, new DatabaseProperties().getRouting());
+        SingleFlight routed = new SingleFlight(animeProperties, meterRegistry, routing);
+        DatabaseClient client = DatabaseClient.create(routing);
+        Mono<String> databaseName = client.sql(EmbeddedDatabaseConfig.DATABASE_NAME_QUERY)
+                .map(row -> row.get("name", String.class))
+                .one();
+        databaseName.contextWrite(as("luiz")).block();
+
+        StepVerifier.create(routed.mono("findListVersion", 1, () -> databaseName)
+                        .contextWrite(DatabaseRoute::readOnly).contextWrite(as("luiz")))
+                .expectNext("single_flight_primary")
+                .verifyComplete();
+        StepVerifier.create(routed.mono("findListVersion", 1, () -> databaseName)
+                        .contextWrite(DatabaseRoute::readOnly).contextWrite(as("david")))
+                .expectNext("single_flight_replica")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("mono loads on every call when coalescing is disabled")
+    public void mono_LoadsEveryTime_WhenCoalescingIsDisabled() {
+        animeProperties.getCoalescing().setEnabled(false);
+        SingleFlight disabled = new SingleFlight(animeProperties, meterRegistry, null);
+
+        StepVerifier first = StepVerifier.create(disabled.mono("findById", 1, () -> Mono.defer(() -> {
+            loads.incrementAndGet();
+            return row.asMono();
+        }))).expectNext(anime).expectComplete().verifyLater();
+        StepVerifier.create(disabled.mono("findById", 1, () -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return anime;
+        }))).expectNext(anime).verifyComplete();
+        row.tryEmitValue(anime);
+
+        first.verify();
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    private Mono<Anime> load(int id) {
+        return singleFlight.mono("findById", id, () -> Mono.defer(() -> {
+            loads.incrementAndGet();
+            return row.asMono();
+        }));
+    }
+
+    private Context as(String username) {
+        return ReactiveSecurityContextHolder.withAuthentication(new TestingAuthenticationToken(username, null));
+    }
+}
@@ -0,0 +1,100 @@
+package com.luiz.webflux.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.util.AnimeCreator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+@ExtendWith(SpringExtension.class)
+class AnimeJsonEncoderTest {
+
+    private static final ResolvableType ANIME_TYPE = ResolvableType.forClass(Anime.class);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final AnimeJsonEncoder encoder = new AnimeJsonEncoder(objectMapper, new AnimeProperties());
+    private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final Anime anime = AnimeCreator.createValidAnime();
+    private String animeJson;
+
+    @BeforeEach
+    public void setUp() throws JsonProcessingException {
+        animeJson = objectMapper.writeValueAsString(anime);
+    }
+
+    @Test
+    @DisplayName("encode writes an anime from the cached bytes, the same Jackson writes, once it was encoded")
+    public void encode_WritesCachedBytes_WhenAnimeWasEncodedBefore() {
+        StepVerifier.create(encode(Mono.just(anime), MediaType.APPLICATION_JSON).concatWith(encode(Mono.just(anime), MediaType.APPLICATION_JSON)))
+                .expectNext(animeJson, animeJson)
+                .verifyComplete();
+
+        Assertions.assertEquals(1, encoder.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("encode encodes an anime again once it was updated")
+    public void encode_EncodesAgain_WhenAnimeWasUpdated() {
+        Anime updated = AnimeCreator.createValidUpdateAnime().withVersion(1L);
+
+        StepVerifier.create(encode(Mono.just(anime), MediaType.APPLICATION_JSON).concatWith(encode(Mono.just(updated), MediaType.APPLICATION_JSON)))
+                .expectNext(animeJson)
+                .expectNextMatches(json -> json.contains("\"name\":\"Tensei Shitara Slime Datta Ken 2\",\"version\":1"))
+                .verifyComplete();
+
+        Assertions.assertEquals(0, encoder.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("encode writes a flux of anime as a JSON array")
+    public void encode_WritesJsonArray_WhenMediaTypeIsNotStreaming() {
+        StepVerifier.create(encode(Flux.just(anime, anime), MediaType.APPLICATION_JSON))
+                .expectNext("[" + animeJson + "," + animeJson + "]")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("encode writes a flux of anime one per line when the media type is NDJSON")
+    public void encode_WritesOnePerLine_WhenMediaTypeIsNdjson() {
+        StepVerifier.create(encode(Flux.just(anime, anime), MediaType.APPLICATION_NDJSON))
+                .expectNext(animeJson + "\n" + animeJson + "\n")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("canEncode leaves other charsets to the Jackson encoder")
+    public void canEncode_ReturnsFalse_WhenCharsetIsNotUtf8() {
+        Assertions.assertTrue(encoder.canEncode(ANIME_TYPE, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(encoder.canEncode(ANIME_TYPE, new MimeType("application", "json", StandardCharsets.UTF_16)));
+        Assertions.assertFalse(encoder.canEncode(ResolvableType.forClass(Object.class), MediaType.APPLICATION_JSON));
+    }
+
+    private Mono<String> encode(Publisher<Anime> animes, MediaType mediaType) {
+        return DataBufferUtils.join(encoder.encode(animes, bufferFactory, ANIME_TYPE, mediaType, Collections.emptyMap()))
+                .map(buffer -> {
+                    String json = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return json;
+                });
+    }
+}
@@ -0,0 +1,91 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.util.AnimeCreator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+
+@ExtendWith(SpringExtension.class)
+class CodecConfigTest {
+
+    private static final ResolvableType ANIME_TYPE = ResolvableType.forClass(Anime.class);
+    private static final MediaType SMILE_STREAM = MediaType.parseMediaType("application/stream+x-jackson-smile");
+
+    private final ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+
+    private final Anime anime = AnimeCreator.createValidAnime();
+
+    private final Anime second = AnimeCreator.createValidAnime().withId(2).withName("Boku no Hero Academia");
+
+    @BeforeEach
+    public void setUp() {
+        new CodecConfig().smileCodecCustomizer(Jackson2ObjectMapperBuilder.json()).customize(configurer);
+    }
+
+    @Test
+    @DisplayName("smileCodecCustomizer streams animes as Smile that decode back to the written animes")
+    public void smileCodecCustomizer_RoundTripsStream_WhenSmileStreamIsNegotiated() {
+        Flux<DataBuffer> encoded = encoder(SMILE_STREAM).encode(Flux.just(anime, second), DefaultDataBufferFactory.sharedInstance,
+                ANIME_TYPE, SMILE_STREAM, Collections.emptyMap());
+
+        // version and updatedAt are read only, so they are written but not read back
+        StepVerifier.create(decoder(SMILE_STREAM).decode(encoded, ANIME_TYPE, SMILE_STREAM, Collections.emptyMap()))
+                .expectNext(anime.withVersion(null).withUpdatedAt(null), second.withVersion(null).withUpdatedAt(null))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("smileCodecCustomizer writes a list of animes in fewer bytes than JSON")
+    public void smileCodecCustomizer_WritesSmallerList_ThanJson() {
+        Assertions.assertTrue(size(MediaType.parseMediaType("application/x-jackson-smile")) < size(MediaType.APPLICATION_JSON));
+    }
+
+    private long size(MediaType mediaType) {
+        return encoder(mediaType).encode(Flux.just(anime, second), DefaultDataBufferFactory.sharedInstance, ANIME_TYPE,
+                        mediaType, Collections.emptyMap())
+                .map(buffer -> {
+                    long bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Encoder<Anime> encoder(MediaType mediaType) {
+        return configurer.getWriters().stream()
+                .filter(writer -> writer instanceof EncoderHttpMessageWriter && writer.canWrite(ANIME_TYPE, mediaType))
+                .map(writer -> (Encoder<Anime>) ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Decoder<Anime> decoder(MediaType mediaType) {
+        return configurer.getReaders().stream()
+                .filter(reader -> reader instanceof DecoderHttpMessageReader && reader.canRead(ANIME_TYPE, mediaType))
+                .map(reader -> (Decoder<Anime>) ((DecoderHttpMessageReader<?>) reader).getDecoder())
+                .findFirst()
+                .orElseThrow();
+    }
+}
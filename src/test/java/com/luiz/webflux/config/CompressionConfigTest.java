@@ -0,0 +1,84 @@
+package com.luiz.webflux.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+@ExtendWith(SpringExtension.class)
+class CompressionConfigTest {
+
+    private static final String ANIMES = "{\"id\":1,\"name\":\"Tensei Shitara Slime Datta Ken\"}\n".repeat(50);
+    private static final String ANIME = "{\"id\":1,\"name\":\"Tensei Shitara Slime Datta Ken\"}\n";
+
+    private final CompressionProperties compressionProperties = new CompressionProperties();
+
+    private DisposableServer server;
+
+    @BeforeEach
+    public void setUp() {
+        compressionProperties.getExcludedPaths().add("/anime/search/**");
+        // what Boot sets up from server.compression before the customizers run
+        HttpServer httpServer = HttpServer.create()
+                .port(0)
+                .compress(1024)
+                .compress((request, response) -> true)
+                .route(routes -> routes
+                        .get("/anime", (request, response) -> response.sendString(Mono.just(ANIMES)))
+                        .get("/anime/search", (request, response) -> response.sendString(Mono.just(ANIMES)))
+                        .get("/anime/stream", (request, response) -> response.sendString(Flux.just(ANIME).concatWith(Flux.never()))));
+        server = new CompressionConfig().compressionExclusionCustomizer(compressionProperties).apply(httpServer).bindNow();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.disposeNow();
+    }
+
+    @Test
+    @DisplayName("compressionExclusionCustomizer keeps compressing the responses Boot compresses")
+    public void compressionExclusionCustomizer_Compresses_WhenPathIsNotExcluded() {
+        Assertions.assertEquals("gzip", contentEncoding("/anime"));
+    }
+
+    @Test
+    @DisplayName("compressionExclusionCustomizer sends the responses of an excluded path uncompressed")
+    public void compressionExclusionCustomizer_DoesNotCompress_WhenPathIsExcluded() {
+        Assertions.assertEquals("", contentEncoding("/anime/search"));
+    }
+
+    @Test
+    @DisplayName("a compressed stream delivers every written anime without waiting for the end of the response")
+    public void compressedStream_DeliversAnime_BeforeResponseCompletes() {
+        String first = HttpClient.create()
+                .port(server.port())
+                .compress(true)
+                .get()
+                .uri("/anime/stream")
+                .responseContent()
+                .asString()
+                .blockFirst(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(ANIME, first);
+    }
+
+    private String contentEncoding(String uri) {
+        return HttpClient.create()
+                .port(server.port())
+                .headers(headers -> headers.set("Accept-Encoding", "gzip"))
+                .get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.thenReturn(response.responseHeaders().get("Content-Encoding", "")))
+                .block(Duration.ofSeconds(5));
+    }
+}
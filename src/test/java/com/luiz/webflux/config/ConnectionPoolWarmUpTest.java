@@ -0,0 +1,96 @@
+package com.luiz.webflux.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ExtendWith(SpringExtension.class)
+class ConnectionPoolWarmUpTest {
+
+    private static final int INITIAL_SIZE = 3;
+    private static final int MAX_SIZE = 5;
+
+    @Mock
+    private ConnectionFactory unavailableDatabase;
+
+    private final DatabaseProperties.Pool properties = new DatabaseProperties().getPool();
+
+    private ConnectionPool connectionPool;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setWarmUpTimeout(Duration.ofSeconds(5));
+        BDDMockito.when(unavailableDatabase.create()).thenAnswer(invocation -> Mono.error(new IllegalStateException("Connection refused")));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        connectionPool.dispose();
+    }
+
+    @Test
+    @DisplayName("start opens the initial connections when the database is up")
+    public void start_OpensInitialConnections_WhenDatabaseIsUp() {
+        connectionPool = pool(ConnectionFactories.get("r2dbc:h2:mem:///warm_up;DB_CLOSE_DELAY=-1"));
+
+        new ConnectionPoolWarmUp(Map.of("primary", connectionPool), properties).start();
+
+        PoolMetrics metrics = connectionPool.getMetrics().orElseThrow();
+        Assertions.assertEquals(INITIAL_SIZE, metrics.allocatedSize());
+        Assertions.assertEquals(INITIAL_SIZE, metrics.idleSize());
+    }
+
+    @Test
+    @DisplayName("start leaves the pool cold when warm-up is disabled")
+    public void start_DoesNotOpenConnections_WhenWarmUpIsDisabled() {
+        connectionPool = pool(ConnectionFactories.get("r2dbc:h2:mem:///warm_up;DB_CLOSE_DELAY=-1"));
+        properties.setWarmUp(false);
+
+        new ConnectionPoolWarmUp(Map.of("primary", connectionPool), properties).start();
+
+        Assertions.assertEquals(0, connectionPool.getMetrics().orElseThrow().allocatedSize());
+    }
+
+    @Test
+    @DisplayName("start keeps the application starting when the database is down")
+    public void start_DoesNotThrow_WhenDatabaseIsDown() {
+        connectionPool = pool(unavailableDatabase);
+        ConnectionPoolWarmUp warmUp = new ConnectionPoolWarmUp(Map.of("primary", connectionPool), properties);
+
+        warmUp.start();
+
+        Assertions.assertTrue(warmUp.isRunning());
+    }
+
+    @Test
+    @DisplayName("start fails the startup when the database is down and failOnWarmUpError is set")
+    public void start_Throws_WhenDatabaseIsDownAndFailOnWarmUpErrorIsSet() {
+        connectionPool = pool(unavailableDatabase);
+        properties.setFailOnWarmUpError(true);
+        ConnectionPoolWarmUp warmUp = new ConnectionPoolWarmUp(Map.of("primary", connectionPool), properties);
+
+        Assertions.assertThrows(IllegalStateException.class, warmUp::start);
+    }
+
+    private ConnectionPool pool(ConnectionFactory connectionFactory) {
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(INITIAL_SIZE)
+                .maxSize(MAX_SIZE)
+                .build());
+    }
+}
@@ -0,0 +1,98 @@
+package com.luiz.webflux.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The hints of the native image, checked against the running application: a proxy or a type the hints miss
+ * only fails once the native executable runs
+ */
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=" + EmbeddedDatabaseConfig.H2_URL,
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@Import(EmbeddedDatabaseConfig.class)
+class NativeHintsTest {
+
+    private static final String HINTS = "META-INF/native-image/com.luiz/spring-webflux-essentials/";
+    private static final String APPLICATION_PACKAGE = "com.luiz.webflux.";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    @DisplayName("no bean of the application is a class proxy, which a native image cannot create")
+    public void applicationBeans_AreNotClassProxies() {
+        List<String> classProxies = applicationBeans()
+                .filter(AopUtils::isCglibProxy)
+                .map(bean -> ClassUtils.getUserClass(bean).getName())
+                .collect(Collectors.toList());
+
+        Assertions.assertEquals(List.of(), classProxies);
+    }
+
+    @Test
+    @DisplayName("every interface proxy of the application is declared in proxy-config.json")
+    public void interfaceProxies_AreDeclared_WhenApplicationRuns() throws IOException {
+        List<List<String>> declared = read("proxy-config.json", new TypeReference<List<List<String>>>() {
+        });
+
+        applicationBeans()
+                .filter(bean -> Proxy.isProxyClass(bean.getClass()))
+                .map(bean -> Arrays.stream(bean.getClass().getInterfaces()).map(Class::getName).collect(Collectors.toList()))
+                .forEach(interfaces -> Assertions.assertTrue(declared.contains(interfaces), () -> interfaces + " is not declared"));
+    }
+
+    @Test
+    @DisplayName("every type in reflect-config.json exists")
+    public void reflectionHints_NameExistingTypes() throws IOException {
+        List<Map<String, Object>> declared = read("reflect-config.json", new TypeReference<List<Map<String, Object>>>() {
+        });
+
+        for (Map<String, Object> hint : declared) {
+            String name = (String) hint.get("name");
+            Assertions.assertTrue(ClassUtils.isPresent(name, getClass().getClassLoader()), () -> name + " does not exist");
+        }
+    }
+
+    private Stream<Object> applicationBeans() {
+        return Arrays.stream(applicationContext.getBeanDefinitionNames())
+                .map(applicationContext::getBean)
+                .filter(bean -> isApplicationType(bean.getClass()) || Arrays.stream(bean.getClass().getInterfaces()).anyMatch(NativeHintsTest::isApplicationType));
+    }
+
+    private static boolean isApplicationType(Class<?> type) {
+        Class<?> userClass = ClassUtils.getUserClass(type);
+        return userClass.getName().startsWith(APPLICATION_PACKAGE) && !userClass.isAnnotationPresent(TestConfiguration.class);
+    }
+
+    private <T> T read(String hints, TypeReference<T> type) throws IOException {
+        try (InputStream json = new ClassPathResource(HINTS + hints).getInputStream()) {
+            return objectMapper.readValue(json, type);
+        }
+    }
+}
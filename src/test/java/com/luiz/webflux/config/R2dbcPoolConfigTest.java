@@ -0,0 +1,50 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.metrics.MeteredConnectionFactory;
+import com.luiz.webflux.routing.ReplicaConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+class R2dbcPoolConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(R2dbcPoolConfig.class, PoolConfigDependencies.class)
+            .withPropertyValues(
+                    "spring.r2dbc.url=r2dbc:h2:mem:///pool_config_primary;DB_CLOSE_DELAY=-1",
+                    "database.replicas[0].url=r2dbc:h2:mem:///pool_config_replica;DB_CLOSE_DELAY=-1",
+                    "database.pool.warm-up=false");
+
+    @Test
+    @DisplayName("spring.r2dbc.pool sizes the primary and the replica pools")
+    public void pools_FollowSpringR2dbcPool_WhenSet() {
+        contextRunner
+                .withPropertyValues("spring.r2dbc.pool.initial-size=2", "spring.r2dbc.pool.max-size=7")
+                .run(context -> {
+                    ConnectionPool primary = (ConnectionPool) context.getBean(MeteredConnectionFactory.class).unwrap();
+                    ConnectionFactory replica = context.getBean(ReplicaConnectionFactory.class).getReplicas().get(0);
+
+                    Assertions.assertEquals(7, primary.getMetrics().orElseThrow().getMaxAllocatedSize());
+                    Assertions.assertEquals(7, ((ConnectionPool) ((MeteredConnectionFactory) replica).unwrap())
+                            .getMetrics().orElseThrow().getMaxAllocatedSize());
+                });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(DatabaseProperties.class)
+    static class PoolConfigDependencies {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.luiz.webflux.config;
+
+import com.luiz.webflux.domain.TokenResponse;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=" + EmbeddedDatabaseConfig.H2_URL,
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "auth.token.enabled=true",
+        "rate-limit.enabled=false"
+})
+@AutoConfigureWebTestClient
+@Import(EmbeddedDatabaseConfig.class)
+class SecurityConfigTest {
+
+    private static final String USERNAME = "david";
+    private static final String PASSWORD = "devdojo";
+
+    @Autowired
+    private WebTestClient client;
+
+    @Test
+    @DisplayName("token is issued against the password and the bearer token it returns authenticates requests")
+    public void token_IssuesBearerToken_WhenBasicAuthenticated() {
+        String token = basicToken();
+
+        // the in-process database has no animes: not found means the request got past security
+        client.get()
+                .uri("/anime/{id}", 1)
+                .headers(headers -> headers.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("token returns unauthorized when the request only carries a bearer token, so a token cannot renew itself")
+    public void token_ReturnUnauthorized_WhenBearerAuthenticated() {
+        String token = basicToken();
+
+        client.post()
+                .uri("/auth/token")
+                .headers(headers -> headers.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private String basicToken() {
+        TokenResponse tokenResponse = client.post()
+                .uri("/auth/token")
+                .headers(headers -> headers.setBasicAuth(USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TokenResponse.class)
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertNotNull(tokenResponse);
+        return tokenResponse.getToken();
+    }
+}
@@ -1,6 +1,10 @@
 package com.luiz.webflux.controller;
 
 import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeBatchProgress;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.domain.AnimePage;
+import com.luiz.webflux.domain.AnimeVersion;
 import com.luiz.webflux.service.AnimeService;
 import com.luiz.webflux.util.AnimeCreator;
 import org.junit.jupiter.api.*;
@@ -9,11 +13,18 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.blockhound.BlockHound;
 import reactor.blockhound.BlockingOperationError;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
@@ -40,33 +51,109 @@ class AnimeControllerTest {
     @BeforeEach
     public void setUp() {
         BDDMockito.when(animeService.findAll()).thenReturn(Flux.just(anime));
+        BDDMockito.when(animeService.findListVersion()).thenReturn(Mono.just(new AnimeListVersion(1, 1, 0)));
+        BDDMockito.when(animeService.findRecentListVersion()).thenReturn(Mono.just(new AnimeListVersion(1, 1, 0)));
+        BDDMockito.when(animeService.findPage(null, 1)).thenReturn(Mono.just(new AnimePage(List.of(anime), anime.getId())));
+        BDDMockito.when(animeService.findPage(0, null)).thenReturn(Mono.just(new AnimePage(List.of(anime), null)));
+        BDDMockito.when(animeService.stream(null)).thenReturn(Flux.just(anime));
+        BDDMockito.when(animeService.search("slime", null)).thenReturn(Flux.just(anime));
         BDDMockito.when(animeService.findById(ArgumentMatchers.anyInt())).thenReturn(Mono.just(anime));
+        BDDMockito.when(animeService.findVersion(ArgumentMatchers.anyInt())).thenReturn(Mono.just(AnimeVersion.of(anime)));
         BDDMockito.when(animeService.save(AnimeCreator.createAnimeToBeSaved())).thenReturn(Mono.just(anime));
         BDDMockito.when(animeService.saveAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved()))).thenReturn(Flux.just(anime, anime));
-        BDDMockito.when(animeService.delete(ArgumentMatchers.anyInt())).thenReturn(Mono.empty());
-        BDDMockito.when(animeService.update(AnimeCreator.createValidAnime())).thenReturn(Mono.empty());
+        BDDMockito.when(animeService.ingest(ArgumentMatchers.any())).thenReturn(Flux.just(new AnimeBatchProgress(0, 2, 2)));
+        BDDMockito.when(animeService.delete(ArgumentMatchers.anyInt(), ArgumentMatchers.any())).thenReturn(Mono.empty());
+        BDDMockito.when(animeService.update(ArgumentMatchers.any(Anime.class))).thenReturn(Mono.empty());
     }
 
     @Test
     public void blockHoundWorks() {
+        // started after BlockHound.install(): installing it under an idle worker of the shared parallel scheduler
+        // can kill that worker and leave its queue stuck, depending on the tests that ran before
+        Scheduler scheduler = Schedulers.newParallel("block-hound", 1);
         try {
             FutureTask<?> task = new FutureTask<>(() -> {
                 Thread.sleep(0);
                 return "";
             });
-            Schedulers.parallel().schedule(task);
+            scheduler.schedule(task);
 
             task.get(10, TimeUnit.SECONDS);
             Assertions.fail("should fail");
         } catch (Exception e) {
             Assertions.assertTrue(e.getCause() instanceof BlockingOperationError);
+        } finally {
+            scheduler.dispose();
         }
     }
 
     @Test
     @DisplayName("findAll returns a flux of anime")
     public void listAll_ReturnFluxOfAnime_WhenSuccessful() {
-        StepVerifier.create(animeController.listAll())
+        StepVerifier.create(animeController.listAll(new HttpHeaders()).flatMapMany(HttpEntity::getBody))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listAll tags the list with a weak ETag from a recent list version and varies by format and coding")
+    public void listAll_ReturnETag_WhenSuccessful() {
+        StepVerifier.create(animeController.listAll(new HttpHeaders()).map(HttpEntity::getHeaders))
+                .expectSubscription()
+                .assertNext(headers -> {
+                    Assertions.assertEquals("W/\"1-1-0\"", headers.getETag());
+                    Assertions.assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), headers.getVary());
+                })
+                .verifyComplete();
+
+        BDDMockito.verify(animeService, Mockito.never()).findListVersion();
+    }
+
+    @Test
+    @DisplayName("listAll reads the current list version when the client revalidates its copy")
+    public void listAll_ReadsCurrentVersion_WhenRequestIsConditional() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("W/\"1-1-0\"");
+        StepVerifier.create(animeController.listAll(headers).map(response -> response.getHeaders().getETag()))
+                .expectSubscription()
+                .expectNext("W/\"1-1-0\"")
+                .verifyComplete();
+
+        BDDMockito.verify(animeService, Mockito.never()).findRecentListVersion();
+    }
+
+    @Test
+    @DisplayName("listPage returns a page of anime with the next cursor")
+    public void listPage_ReturnPageOfAnime_WhenSuccessful() {
+        StepVerifier.create(animeController.listPage(null, 1))
+                .expectSubscription()
+                .expectNext(new AnimePage(List.of(anime), anime.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listPageAfter returns the page after the cursor with the default size")
+    public void listPageAfter_ReturnPageOfAnime_WhenOnlyCursorIsGiven() {
+        StepVerifier.create(animeController.listPageAfter(0))
+                .expectSubscription()
+                .expectNext(new AnimePage(List.of(anime), null))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("stream returns a flux of anime")
+    public void stream_ReturnFluxOfAnime_WhenSuccessful() {
+        StepVerifier.create(animeController.stream(null))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("search returns a flux of the animes matching the query")
+    public void search_ReturnFluxOfAnime_WhenSuccessful() {
+        StepVerifier.create(animeController.search("slime", null))
                 .expectSubscription()
                 .expectNext(anime)
                 .verifyComplete();
@@ -75,10 +162,71 @@ class AnimeControllerTest {
     @Test
     @DisplayName("findById returns Mono with anime when it exists")
     public void findById_ReturnMonoAnime_WhenSuccessful() {
-        StepVerifier.create(animeController.findById(1))
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/1"));
+        StepVerifier.create(animeController.findById(1, exchange))
                 .expectSubscription()
                 .expectNext(anime)
                 .verifyComplete();
+
+        Assertions.assertEquals("\"0\"", exchange.getResponse().getHeaders().getETag());
+        Assertions.assertEquals(AnimeCreator.UPDATED_AT.toEpochMilli(), exchange.getResponse().getHeaders().getLastModified());
+        Assertions.assertEquals("no-cache, private", exchange.getResponse().getHeaders().getCacheControl());
+        Assertions.assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), exchange.getResponse().getHeaders().getVary());
+        BDDMockito.verify(animeService, Mockito.never()).findVersion(ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("findById returns the anime with the first ETag and no Last-Modified when it has no version or timestamp yet")
+    public void findById_ReturnMonoAnime_WhenVersionIsMissing() {
+        Anime unversioned = anime.withVersion(null).withUpdatedAt(null);
+        BDDMockito.when(animeService.findById(1)).thenReturn(Mono.just(unversioned));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/1"));
+
+        StepVerifier.create(animeController.findById(1, exchange))
+                .expectSubscription()
+                .expectNext(unversioned)
+                .verifyComplete();
+
+        Assertions.assertEquals("\"0\"", exchange.getResponse().getHeaders().getETag());
+        Assertions.assertEquals(-1, exchange.getResponse().getHeaders().getLastModified());
+    }
+
+    @Test
+    @DisplayName("findById returns not modified without loading the anime when the ETag matches")
+    public void findById_ReturnNotModified_WhenETagMatches() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/1")
+                .ifNoneMatch("\"0\""));
+        StepVerifier.create(animeController.findById(1, exchange))
+                .expectSubscription()
+                .verifyComplete();
+
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+        BDDMockito.verify(animeService, Mockito.never()).findById(ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("findById returns not modified when the anime was not updated since If-Modified-Since")
+    public void findById_ReturnNotModified_WhenNotModifiedSince() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/1")
+                .ifModifiedSince(AnimeCreator.UPDATED_AT.toEpochMilli()));
+        StepVerifier.create(animeController.findById(1, exchange))
+                .expectSubscription()
+                .verifyComplete();
+
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("findById returns the anime when the ETag is outdated")
+    public void findById_ReturnMonoAnime_WhenETagIsOutdated() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/1")
+                .ifNoneMatch("\"-1\""));
+        StepVerifier.create(animeController.findById(1, exchange))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        Assertions.assertEquals("\"0\"", exchange.getResponse().getHeaders().getETag());
     }
 
     @Test
@@ -101,20 +249,60 @@ class AnimeControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("ingest saves a flux of anime and returns the progress of each chunk")
+    public void ingest_ReturnsProgress_WhenSuccessful() {
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        StepVerifier.create(animeController.ingest(Flux.just(animeToBeSaved, animeToBeSaved)))
+                .expectSubscription()
+                .expectNext(new AnimeBatchProgress(0, 2, 2))
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("delete remove the anime when successful")
     public void delete_RemoveAnime_WhenSuccessful() {
-        StepVerifier.create(animeController.delete(1))
+        StepVerifier.create(animeController.delete(1, new HttpHeaders()))
+                .expectSubscription()
+                .verifyComplete();
+
+        BDDMockito.verify(animeService).delete(1, null);
+    }
+
+    @Test
+    @DisplayName("delete expects no version of any anime when If-Match is a weak ETag")
+    public void delete_ExpectsNoVersion_WhenIfMatchIsWeak() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("W/\"0\"");
+
+        StepVerifier.create(animeController.delete(1, headers))
                 .expectSubscription()
                 .verifyComplete();
+
+        BDDMockito.verify(animeService).delete(1, -1L);
     }
 
     @Test
     @DisplayName("update save updated anime and returns empty mono when successful")
     public void update_SaveUpdateAnime_WhenSuccessful() {
-        StepVerifier.create(animeController.update(1, AnimeCreator.createValidAnime()))
+        StepVerifier.create(animeController.update(1, AnimeCreator.createValidAnime(), new HttpHeaders()))
+                .expectSubscription()
+                .verifyComplete();
+
+        BDDMockito.verify(animeService).update(AnimeCreator.createValidAnime().withVersion(null));
+    }
+
+    @Test
+    @DisplayName("update expects the version named by If-Match")
+    public void update_ExpectsVersion_WhenIfMatchIsSent() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"3\"");
+
+        StepVerifier.create(animeController.update(1, AnimeCreator.createValidAnime(), headers))
                 .expectSubscription()
                 .verifyComplete();
+
+        BDDMockito.verify(animeService).update(AnimeCreator.createValidAnime().withVersion(3L));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.luiz.webflux.domain;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+class RolesTest {
+
+    @Test
+    @DisplayName("parse returns the same instance for the same authorities")
+    public void parse_ReturnSameInstance_WhenAuthoritiesAreEqual() {
+        Roles roles = Roles.parse(new String("ROLE_USER,ROLE_ADMIN"));
+
+        Assertions.assertSame(roles, Roles.parse(new String("ROLE_USER,ROLE_ADMIN")));
+        Assertions.assertSame(Role.ADMIN.getAuthority(), roles.getAuthorities().get(1));
+    }
+
+    @Test
+    @DisplayName("has checks the roles present in the authorities")
+    public void has_ReturnTrueOnlyForPresentRoles_WhenSuccessful() {
+        Roles roles = Roles.parse("ROLE_USER");
+
+        Assertions.assertTrue(roles.has(Role.USER));
+        Assertions.assertFalse(roles.has(Role.ADMIN));
+    }
+
+    @Test
+    @DisplayName("parse trims spaces and keeps unknown authorities")
+    public void parse_KeepUnknownAuthorities_WhenAuthoritiesHaveSpaces() {
+        Roles roles = Roles.parse("ROLE_USER, SCOPE_read");
+
+        Assertions.assertTrue(roles.has(Role.USER));
+        Assertions.assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER", "SCOPE_read"), roles.getAuthorities());
+    }
+
+    @Test
+    @DisplayName("getAuthorities of a user returns the shared role authorities")
+    public void getAuthorities_ReturnSharedAuthorities_WhenCalledTwice() {
+        User user = User.builder().username("luiz").authorities("ROLE_USER,ROLE_ADMIN").build();
+
+        Assertions.assertSame(user.getAuthorities(), user.getAuthorities());
+        Assertions.assertTrue(user.hasRole(Role.ADMIN));
+    }
+
+    @Test
+    @DisplayName("setAuthorities parses the new column value, so the roles never lag behind it")
+    public void setAuthorities_ReplacesRoles_WhenColumnChanges() {
+        User user = User.builder().username("david").authorities("ROLE_USER").build();
+
+        user.setAuthorities("ROLE_USER,ROLE_ADMIN");
+
+        Assertions.assertTrue(user.hasRole(Role.ADMIN));
+        Assertions.assertSame(Roles.parse("ROLE_USER,ROLE_ADMIN").getAuthorities(), user.getAuthorities());
+    }
+}
@@ -0,0 +1,89 @@
+package com.luiz.webflux.exception;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.autoconfigure.web.ResourceProperties;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@ExtendWith(SpringExtension.class)
+class GlobalExceptionHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GlobalExceptionHandler handler;
+
+    @BeforeEach
+    @SuppressWarnings("deprecation")
+    public void setUp() {
+        handler = new GlobalExceptionHandler(new CustomAttributes(), new ResourceProperties(),
+                new StaticApplicationContext(), ServerCodecConfigurer.create());
+        handler.setViewResolvers(Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("handle writes the precomputed body of a ResponseStatusException with the attributes CustomAttributes gives")
+    public void handle_WritesPrecomputedBody_WhenResponseStatusExceptionIsRaised() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/0"));
+            Map<String, Object> body = handle(exchange, new NotFoundException("Anime not found", false));
+
+            Assertions.assertEquals(HttpStatus.NOT_FOUND, exchange.getResponse().getStatusCode());
+            Assertions.assertEquals(List.of("timestamp", "path", "status", "error", "message", "requestId", "developerMessage"),
+                    new ArrayList<>(body.keySet()));
+            Assertions.assertEquals("/anime/0", body.get("path"));
+            Assertions.assertEquals(404, body.get("status"));
+            Assertions.assertEquals("Not Found", body.get("error"));
+            Assertions.assertEquals("404 NOT_FOUND \"Anime not found\"", body.get("message"));
+            Assertions.assertEquals(exchange.getRequest().getId(), body.get("requestId"));
+            Assertions.assertEquals(CustomAttributes.DEVELOPER_MESSAGE, body.get("developerMessage"));
+        }
+    }
+
+    @Test
+    @DisplayName("handle writes the stack trace through the error attributes when trace=true is requested")
+    public void handle_WritesStackTrace_WhenTraceIsRequested() throws Exception {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/0?trace=true"));
+        Map<String, Object> body = handle(exchange, new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid name!"));
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, exchange.getResponse().getStatusCode());
+        Assertions.assertTrue(((String) body.get("trace")).contains(GlobalExceptionHandlerTest.class.getName()));
+    }
+
+    @Test
+    @DisplayName("NotFoundException captures its stack trace only when the request asked for it with trace=true")
+    public void notFoundException_CapturesStackTrace_WhenTraceIsRequested() {
+        ErrorTrace errorTrace = new ErrorTrace();
+        Mono<Void> notFound = Mono.deferContextual(context -> Mono.error(new NotFoundException("Anime not found", ErrorTrace.isRequested(context))));
+
+        StepVerifier.create(errorTrace.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/anime/0?trace=true")), exchange -> notFound))
+                .expectErrorMatches(error -> error.getStackTrace().length > 0)
+                .verify();
+        StepVerifier.create(errorTrace.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/anime/0?trace=false")), exchange -> notFound))
+                .expectErrorMatches(error -> error.getStackTrace().length == 0)
+                .verify();
+    }
+
+    private Map<String, Object> handle(MockServerWebExchange exchange, Throwable error) throws Exception {
+        handler.handle(exchange, error).block();
+        return objectMapper.readValue(exchange.getResponse().getBodyAsString().block(), new TypeReference<Map<String, Object>>() {
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package com.luiz.webflux.repository;
+
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.util.AnimeCreator;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+@DataR2dbcTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///anime_repository;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@Import(EmbeddedDatabaseConfig.class)
+class AnimeRepositoryTest {
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    private final Anime first = AnimeCreator.createAnimeToBeSaved();
+
+    private final Anime second = AnimeCreator.createAnimeToBeSaved().withName("Boku no Hero Academia");
+
+    @AfterEach
+    public void tearDown() {
+        animeRepository.deleteAll().block();
+    }
+
+    @Test
+    @DisplayName("insertAll writes the animes in one statement and returns them with their ids, in the same order")
+    public void insertAll_ReturnsAnimesWithIds_InTheSameOrder() {
+        List<Anime> saved = animeRepository.insertAll(List.of(first, second)).collectList().block();
+
+        StepVerifier.create(animeRepository.findPage(0, 10).map(Anime::getName))
+                .expectNext(first.getName(), second.getName())
+                .verifyComplete();
+        StepVerifier.create(animeRepository.findById(saved.get(0).getId()).map(Anime::getName))
+                .expectNext(first.getName())
+                .verifyComplete();
+        StepVerifier.create(animeRepository.findById(saved.get(1).getId()).map(Anime::getName))
+                .expectNext(second.getName())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("insertAll writes none of the animes when one of them is rejected by the database")
+    public void insertAll_WritesNothing_WhenOneAnimeIsRejected() {
+        Anime tooLong = first.withName("x".repeat(256));
+
+        StepVerifier.create(animeRepository.insertAll(List.of(first, tooLong, second)))
+                .verifyError(DataAccessException.class);
+
+        StepVerifier.create(animeRepository.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+}
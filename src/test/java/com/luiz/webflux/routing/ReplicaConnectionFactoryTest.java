@@ -0,0 +1,75 @@
+package com.luiz.webflux.routing;
+
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+class ReplicaConnectionFactoryTest {
+
+    private static final String REPLICA_A = "replica_a";
+    private static final String REPLICA_B = "replica_b";
+
+    @Test
+    @DisplayName("round robin takes the replicas in turn")
+    public void create_TakesReplicasInTurn_WhenBalancingIsRoundRobin() {
+        ReplicaConnectionFactory replicas = new ReplicaConnectionFactory(List.of(
+                EmbeddedDatabaseConfig.namedDatabase(REPLICA_A), EmbeddedDatabaseConfig.namedDatabase(REPLICA_B)),
+                ReplicaConnectionFactory.Balancing.ROUND_ROBIN);
+        DatabaseClient client = DatabaseClient.create(replicas);
+
+        StepVerifier.create(databaseName(client).concatWith(databaseName(client)).concatWith(databaseName(client)))
+                .expectNext(REPLICA_A, REPLICA_B, REPLICA_A)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("least pending avoids the replica whose pool is busy")
+    public void create_AvoidsBusyReplica_WhenBalancingIsLeastPending() {
+        ConnectionPool busy = pool(REPLICA_A);
+        ConnectionPool idle = pool(REPLICA_B);
+        ReplicaConnectionFactory replicas = new ReplicaConnectionFactory(List.of(busy, idle),
+                ReplicaConnectionFactory.Balancing.LEAST_PENDING);
+        DatabaseClient client = DatabaseClient.create(replicas);
+        Connection held = busy.create().block();
+
+        StepVerifier.create(databaseName(client).concatWith(databaseName(client)))
+                .expectNext(REPLICA_B, REPLICA_B)
+                .verifyComplete();
+
+        Mono.from(held.close()).block();
+        replicas.dispose();
+        Assertions.assertTrue(replicas.isDisposed());
+    }
+
+    @Test
+    @DisplayName("creating a replica factory without replicas fails")
+    public void constructor_Throws_WhenThereAreNoReplicas() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ReplicaConnectionFactory(List.of(), ReplicaConnectionFactory.Balancing.ROUND_ROBIN));
+    }
+
+    private ConnectionPool pool(String name) {
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(EmbeddedDatabaseConfig.namedDatabase(name))
+                .initialSize(1)
+                .maxSize(2)
+                .build());
+    }
+
+    private Mono<String> databaseName(DatabaseClient client) {
+        return client.sql(EmbeddedDatabaseConfig.DATABASE_NAME_QUERY)
+                .map(row -> row.get("name", String.class))
+                .one();
+    }
+}
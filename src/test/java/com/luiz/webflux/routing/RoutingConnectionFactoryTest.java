@@ -0,0 +1,100 @@
+package com.luiz.webflux.routing;
+
+import com.luiz.webflux.config.DatabaseProperties;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+@ExtendWith(SpringExtension.class)
+class RoutingConnectionFactoryTest {
+
+    private static final String PRIMARY = "routing_primary";
+    private static final String REPLICA = "routing_replica";
+
+    private final ConnectionFactory primary = EmbeddedDatabaseConfig.namedDatabase(PRIMARY);
+    private final ConnectionFactory replica = EmbeddedDatabaseConfig.namedDatabase(REPLICA);
+    private final DatabaseProperties.Routing routing = new DatabaseProperties().getRouting();
+
+    @Test
+    @DisplayName("read-only operations go to the replica")
+    public void create_RoutesToReplica_WhenOperationIsReadOnly() {
+        DatabaseClient client = DatabaseClient.create(new RoutingConnectionFactory(primary, replica, routing));
+
+        StepVerifier.create(databaseName(client).contextWrite(DatabaseRoute::readOnly))
+                .expectNext(REPLICA)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("unmarked operations go to the primary")
+    public void create_RoutesToPrimary_WhenOperationIsNotReadOnly() {
+        DatabaseClient client = DatabaseClient.create(new RoutingConnectionFactory(primary, replica, routing));
+
+        StepVerifier.create(databaseName(client))
+                .expectNext(PRIMARY)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("read-only operations go to the primary when there is no replica")
+    public void create_RoutesToPrimary_WhenThereIsNoReplica() {
+        DatabaseClient client = DatabaseClient.create(new RoutingConnectionFactory(primary, null, routing));
+
+        StepVerifier.create(databaseName(client).contextWrite(DatabaseRoute::readOnly))
+                .expectNext(PRIMARY)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("reads of a user who just wrote go to the primary, reads of other users to the replica")
+    public void create_RoutesReadsToPrimary_WhenUserWroteInsideTheReadYourWritesWindow() {
+        DatabaseClient client = DatabaseClient.create(new RoutingConnectionFactory(primary, replica, routing));
+
+        StepVerifier.create(databaseName(client).contextWrite(as("luiz")))
+                .expectNext(PRIMARY)
+                .verifyComplete();
+
+        StepVerifier.create(databaseName(client).contextWrite(DatabaseRoute::readOnly).contextWrite(as("luiz")))
+                .expectNext(PRIMARY)
+                .verifyComplete();
+        StepVerifier.create(databaseName(client).contextWrite(DatabaseRoute::readOnly).contextWrite(as("david")))
+                .expectNext(REPLICA)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("reads of a user who just wrote go to the replica when read-your-writes is disabled")
+    public void create_RoutesReadsToReplica_WhenReadYourWritesIsDisabled() {
+        routing.setReadYourWrites(Duration.ZERO);
+        DatabaseClient client = DatabaseClient.create(new RoutingConnectionFactory(primary, replica, routing));
+
+        StepVerifier.create(databaseName(client).contextWrite(as("luiz")))
+                .expectNext(PRIMARY)
+                .verifyComplete();
+
+        StepVerifier.create(databaseName(client).contextWrite(DatabaseRoute::readOnly).contextWrite(as("luiz")))
+                .expectNext(REPLICA)
+                .verifyComplete();
+    }
+
+    private Mono<String> databaseName(DatabaseClient client) {
+        return client.sql(EmbeddedDatabaseConfig.DATABASE_NAME_QUERY)
+                .map(row -> row.get("name", String.class))
+                .one();
+    }
+
+    private Context as(String username) {
+        return ReactiveSecurityContextHolder.withAuthentication(new TestingAuthenticationToken(username, null));
+    }
+}
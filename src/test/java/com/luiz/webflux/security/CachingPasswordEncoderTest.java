@@ -0,0 +1,58 @@
+package com.luiz.webflux.security;
+
+import com.luiz.webflux.config.AuthProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+class CachingPasswordEncoderTest {
+
+    private static final String ENCODED_PASSWORD = "{bcrypt}encoded";
+
+    @Mock
+    private PasswordEncoder delegate;
+
+    private CachingPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void setUp() {
+        passwordEncoder = new CachingPasswordEncoder(delegate, new AuthProperties().getCache());
+        BDDMockito.when(delegate.matches("devdojo", ENCODED_PASSWORD)).thenReturn(true);
+        BDDMockito.when(delegate.matches("wrong", ENCODED_PASSWORD)).thenReturn(false);
+    }
+
+    @Test
+    @DisplayName("matches checks the password only once when it is right")
+    public void matches_CallsDelegateOnce_WhenPasswordIsRight() {
+        Assertions.assertTrue(passwordEncoder.matches("devdojo", ENCODED_PASSWORD));
+        Assertions.assertTrue(passwordEncoder.matches("devdojo", ENCODED_PASSWORD));
+
+        BDDMockito.verify(delegate, Mockito.times(1)).matches("devdojo", ENCODED_PASSWORD);
+    }
+
+    @Test
+    @DisplayName("matches always checks the password when it is wrong")
+    public void matches_CallsDelegateEveryTime_WhenPasswordIsWrong() {
+        Assertions.assertFalse(passwordEncoder.matches("wrong", ENCODED_PASSWORD));
+        Assertions.assertFalse(passwordEncoder.matches("wrong", ENCODED_PASSWORD));
+
+        BDDMockito.verify(delegate, Mockito.times(2)).matches("wrong", ENCODED_PASSWORD);
+    }
+
+    @Test
+    @DisplayName("matches checks the password again when the encoded password changes")
+    public void matches_CallsDelegate_WhenEncodedPasswordChanges() {
+        BDDMockito.when(delegate.matches("devdojo", "{bcrypt}changed")).thenReturn(false);
+
+        Assertions.assertTrue(passwordEncoder.matches("devdojo", ENCODED_PASSWORD));
+        Assertions.assertFalse(passwordEncoder.matches("devdojo", "{bcrypt}changed"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.luiz.webflux.security;
+
+import com.luiz.webflux.config.RateLimitProperties;
+import com.luiz.webflux.domain.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@ExtendWith(SpringExtension.class)
+class RateLimitWebFilterTest {
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Authentication user = authentication("david", Role.USER);
+
+    private final Authentication admin = authentication("luiz", Role.USER, Role.ADMIN);
+
+    private final AtomicInteger passed = new AtomicInteger();
+
+    private RateLimitWebFilter rateLimitWebFilter;
+
+    @BeforeEach
+    public void setUp() {
+        RateLimitProperties.Route batch = new RateLimitProperties.Route();
+        batch.setName("anime-batch");
+        batch.setMethod(HttpMethod.POST);
+        batch.setPath("/anime/batch");
+        batch.getLimits().put(Role.ADMIN, limit(1));
+        RateLimitProperties.Route anime = new RateLimitProperties.Route();
+        anime.setName("anime");
+        anime.setPath("/anime/**");
+        anime.getLimits().put(Role.ADMIN, limit(3));
+        anime.getLimits().put(Role.USER, limit(2));
+        properties.getRoutes().addAll(List.of(batch, anime));
+        rateLimitWebFilter = new RateLimitWebFilter(properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("filter answers 429 with Retry-After once the user used up the capacity of the route")
+    public void filter_Returns429_WhenBucketIsEmpty() {
+        Assertions.assertNull(filter(MockServerHttpRequest.get("/anime/1"), user));
+        Assertions.assertNull(filter(MockServerHttpRequest.get("/anime/2"), user));
+        MockServerWebExchange rejected = exchange(MockServerHttpRequest.get("/anime/3"), user);
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        Assertions.assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals(2, passed.get());
+        Assertions.assertEquals(1, meterRegistry.get("rate.limit.rejections").tag("route", "anime").counter().count());
+    }
+
+    @Test
+    @DisplayName("filter gives every user and route a bucket of their own, with the limit of their highest role")
+    public void filter_LimitsSeparately_WhenUsersOrRoutesDiffer() {
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertNull(filter(MockServerHttpRequest.get("/anime"), admin));
+        }
+        Assertions.assertNull(filter(MockServerHttpRequest.post("/anime/batch"), admin));
+        Assertions.assertNull(filter(MockServerHttpRequest.get("/anime"), user));
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, filter(MockServerHttpRequest.get("/anime"), admin));
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, filter(MockServerHttpRequest.post("/anime/batch"), admin));
+    }
+
+    @Test
+    @DisplayName("filter lets requests through when no route matches or no user is authenticated")
+    public void filter_DoesNotLimit_WhenNoRouteMatchesOrUserIsAnonymous() {
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertNull(filter(MockServerHttpRequest.get("/actuator/health"), user));
+            Assertions.assertNull(filter(MockServerHttpRequest.get("/anime"), null));
+        }
+
+        Assertions.assertEquals(10, passed.get());
+    }
+
+    @Test
+    @DisplayName("take refills one token per interval and tells how long until the next one")
+    public void take_RefillsAtRate_WhenTimePasses() {
+        RateLimitWebFilter.TokenBucket bucket = new RateLimitWebFilter.TokenBucket(limit(2));
+        long now = System.nanoTime();
+        long interval = TimeUnit.SECONDS.toNanos(1) / 10;
+
+        Assertions.assertEquals(0, bucket.take(now));
+        Assertions.assertEquals(0, bucket.take(now));
+        Assertions.assertEquals(interval, bucket.take(now));
+        Assertions.assertEquals(0, bucket.take(now + interval));
+    }
+
+    private HttpStatus filter(MockServerHttpRequest.BaseBuilder<?> request, Authentication authentication) {
+        return exchange(request, authentication).getResponse().getStatusCode();
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, Authentication authentication) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        Mono<Void> filtered = rateLimitWebFilter.filter(exchange, filteredExchange -> Mono.fromRunnable(passed::incrementAndGet));
+        if (authentication != null) {
+            filtered = filtered.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+        }
+        filtered.block();
+        return exchange;
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRate(10);
+        return limit;
+    }
+
+    private static Authentication authentication(String username, Role... roles) {
+        return new UsernamePasswordAuthenticationToken(username, "devdojo",
+                Stream.of(roles).map(Role::getAuthority).collect(Collectors.toList()));
+    }
+}
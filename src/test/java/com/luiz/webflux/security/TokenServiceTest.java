@@ -0,0 +1,89 @@
+package com.luiz.webflux.security;
+
+import com.luiz.webflux.config.AuthProperties;
+import com.luiz.webflux.domain.TokenResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+class TokenServiceTest {
+
+    private static final byte[] SECRET = "a-secret-with-at-least-thirty-two-bytes".getBytes(StandardCharsets.UTF_8);
+
+    private final AuthProperties.Token properties = new AuthProperties().getToken();
+
+    private final UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            "luiz", null, AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+    @Test
+    @DisplayName("issue creates a token carrying the user name and roles that the decoder accepts")
+    public void issue_CreatesDecodableToken_WhenSuccessful() {
+        TokenService tokenService = new TokenService(SECRET, properties, Clock.systemUTC());
+
+        TokenResponse tokenResponse = tokenService.issue(authentication);
+
+        Assertions.assertEquals("Bearer", tokenResponse.getTokenType());
+        StepVerifier.create(tokenService.decoder().decode(tokenResponse.getToken()))
+                .expectSubscription()
+                .assertNext(jwt -> {
+                    Assertions.assertEquals("luiz", jwt.getSubject());
+                    Assertions.assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), jwt.getClaimAsStringList(TokenService.ROLES_CLAIM));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("decoder rejects a token that has already expired")
+    public void decoder_ReturnError_WhenTokenIsExpired() {
+        Clock past = Clock.fixed(Instant.now().minus(Duration.ofHours(1)), ZoneOffset.UTC);
+        TokenService tokenService = new TokenService(SECRET, properties, past);
+
+        TokenResponse tokenResponse = tokenService.issue(authentication);
+
+        StepVerifier.create(tokenService.decoder().decode(tokenResponse.getToken()))
+                .expectSubscription()
+                .expectError(JwtException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("decoder rejects a token signed with another secret")
+    public void decoder_ReturnError_WhenTokenIsSignedWithAnotherSecret() {
+        byte[] otherSecret = "another-secret-with-thirty-two-bytes!!".getBytes(StandardCharsets.UTF_8);
+        TokenResponse tokenResponse = new TokenService(otherSecret, properties, Clock.systemUTC()).issue(authentication);
+
+        ReactiveJwtDecoder decoder = new TokenService(SECRET, properties, Clock.systemUTC()).decoder();
+
+        // the signature is checked as soon as the token is parsed, before the Mono is returned
+        StepVerifier.create(Mono.defer(() -> decoder.decode(tokenResponse.getToken())))
+                .expectSubscription()
+                .expectError(JwtException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("decoder rejects a token from another issuer signed with the same secret")
+    public void decoder_ReturnError_WhenTokenHasAnotherIssuer() {
+        AuthProperties.Token otherIssuer = new AuthProperties().getToken();
+        otherIssuer.setIssuer("another-service");
+        TokenResponse tokenResponse = new TokenService(SECRET, otherIssuer, Clock.systemUTC()).issue(authentication);
+
+        StepVerifier.create(new TokenService(SECRET, properties, Clock.systemUTC()).decoder().decode(tokenResponse.getToken()))
+                .expectSubscription()
+                .expectError(JwtException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,80 @@
+package com.luiz.webflux.service;
+
+import com.luiz.webflux.cache.AnimeCache;
+import com.luiz.webflux.cache.AnimeSnapshot;
+import com.luiz.webflux.cache.SingleFlight;
+import com.luiz.webflux.config.AnimeProperties;
+import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeBatchProgress;
+import com.luiz.webflux.metrics.AnimeMetrics;
+import com.luiz.webflux.repository.AnimeRepository;
+import com.luiz.webflux.util.AnimeCreator;
+import com.luiz.webflux.util.EmbeddedDatabaseConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * The ingest against a real database, where a chunk can be rejected halfway through its rows
+ */
+@DataR2dbcTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///anime_ingest;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@Import(EmbeddedDatabaseConfig.class)
+class AnimeServiceIngestTest {
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    private AnimeService animeService;
+
+    @BeforeEach
+    public void setUp() {
+        AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getBatch().setChunkSize(2);
+        animeProperties.getBatch().setIngestConcurrency(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        animeService = new AnimeService(animeRepository, animeProperties, new AnimeCache(animeProperties),
+                new AnimeSnapshot(animeRepository, animeProperties), new SingleFlight(animeProperties, meterRegistry, null),
+                new AnimeMetrics(meterRegistry), TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        animeRepository.deleteAll().block();
+    }
+
+    @Test
+    @DisplayName("ingest keeps the chunks it reported and none of the chunk the database rejected halfway")
+    public void ingest_SavesOnlyReportedChunks_WhenChunkFailsHalfway() {
+        Anime first = AnimeCreator.createAnimeToBeSaved();
+        Anime second = first.withName("Boku no Hero Academia");
+        Anime third = first.withName("Shingeki no Kyojin");
+        Anime tooLong = first.withName("x".repeat(256));
+        Anime last = first.withName("Fullmetal Alchemist");
+
+        StepVerifier.create(animeService.ingest(Flux.just(first, second, third, tooLong, last)))
+                .expectNext(new AnimeBatchProgress(0, 2, 2))
+                .verifyError(DataAccessException.class);
+
+        StepVerifier.create(animeRepository.findPage(0, 10).map(Anime::getName))
+                .expectNext(first.getName(), second.getName())
+                .verifyComplete();
+    }
+}
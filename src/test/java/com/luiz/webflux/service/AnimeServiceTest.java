@@ -1,20 +1,36 @@
 package com.luiz.webflux.service;
 
+import com.luiz.webflux.cache.AnimeCache;
+import com.luiz.webflux.cache.AnimeSnapshot;
+import com.luiz.webflux.cache.SingleFlight;
+import com.luiz.webflux.config.AnimeProperties;
 import com.luiz.webflux.domain.Anime;
+import com.luiz.webflux.domain.AnimeBatchProgress;
+import com.luiz.webflux.domain.AnimeListVersion;
+import com.luiz.webflux.domain.AnimePage;
+import com.luiz.webflux.domain.AnimeVersion;
+import com.luiz.webflux.metrics.AnimeMetrics;
 import com.luiz.webflux.repository.AnimeRepository;
 import com.luiz.webflux.util.AnimeCreator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.blockhound.BlockHound;
 import reactor.blockhound.BlockingOperationError;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
@@ -31,6 +47,26 @@ class AnimeServiceTest {
     @Mock
     private AnimeRepository animeRepository;
 
+    @Spy
+    private AnimeProperties animeProperties = new AnimeProperties();
+
+    @Spy
+    private AnimeCache animeCache = new AnimeCache(animeProperties);
+
+    @Spy
+    private AnimeSnapshot animeSnapshot = new AnimeSnapshot(animeRepository, animeProperties);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(animeProperties, meterRegistry, null);
+
+    @Spy
+    private AnimeMetrics animeMetrics = new AnimeMetrics(meterRegistry);
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
     private final Anime anime = AnimeCreator.createValidAnime();
 
     @BeforeAll
@@ -43,24 +79,35 @@ class AnimeServiceTest {
         BDDMockito.when(animeRepository.findAll()).thenReturn(Flux.just(anime));
         BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyInt())).thenReturn(Mono.just(anime));
         BDDMockito.when(animeRepository.save(AnimeCreator.createAnimeToBeSaved())).thenReturn(Mono.just(anime));
-        BDDMockito.when(animeRepository.saveAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved()))).thenReturn(Flux.just(anime, anime));
-        BDDMockito.when(animeRepository.delete(ArgumentMatchers.any(Anime.class))).thenReturn(Mono.empty());
-        BDDMockito.when(animeRepository.save(AnimeCreator.createValidAnime())).thenReturn(Mono.empty());
+        BDDMockito.when(animeRepository.insertAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved()))).thenReturn(Flux.just(anime, anime));
+        BDDMockito.when(animeRepository.updateName(ArgumentMatchers.anyInt(), ArgumentMatchers.anyString())).thenReturn(Mono.just(1));
+        BDDMockito.when(animeRepository.updateNameIfVersion(ArgumentMatchers.anyInt(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong())).thenReturn(Mono.just(1));
+        BDDMockito.when(animeRepository.deleteAnime(ArgumentMatchers.anyInt())).thenReturn(Mono.just(1));
+        BDDMockito.when(animeRepository.deleteAnimeIfVersion(ArgumentMatchers.anyInt(), ArgumentMatchers.anyLong())).thenReturn(Mono.just(1));
+        BDDMockito.when(animeRepository.existsById(ArgumentMatchers.anyInt())).thenReturn(Mono.just(true));
+        BDDMockito.when(animeRepository.findVersionById(ArgumentMatchers.anyInt())).thenReturn(Mono.just(AnimeVersion.of(anime)));
+        BDDMockito.when(animeRepository.findListVersion()).thenReturn(Mono.just(new AnimeListVersion(1, 1, 0)));
+        BDDMockito.when(transactionalOperator.transactional(ArgumentMatchers.<Flux<Object>>any())).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
     public void blockHoundWorks() {
+        // started after BlockHound.install(): installing it under an idle worker of the shared parallel scheduler
+        // can kill that worker and leave its queue stuck, depending on the tests that ran before
+        Scheduler scheduler = Schedulers.newParallel("block-hound", 1);
         try {
             FutureTask<?> task = new FutureTask<>(() -> {
                 Thread.sleep(0);
                 return "";
             });
-            Schedulers.parallel().schedule(task);
+            scheduler.schedule(task);
 
             task.get(10, TimeUnit.SECONDS);
             Assertions.fail("should fail");
         } catch (Exception e) {
             Assertions.assertTrue(e.getCause() instanceof BlockingOperationError);
+        } finally {
+            scheduler.dispose();
         }
     }
 
@@ -73,6 +120,113 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("findAll runs its own query for every call, so the catalog is never buffered for callers that join late")
+    public void findAll_RunsOwnQuery_WhenCalledConcurrently() {
+        Sinks.Many<Anime> rows = Sinks.many().multicast().onBackpressureBuffer();
+        BDDMockito.when(animeRepository.findAll()).thenReturn(rows.asFlux());
+
+        StepVerifier first = StepVerifier.create(animeService.findAll()).expectNext(anime).expectComplete().verifyLater();
+        StepVerifier second = StepVerifier.create(animeService.findAll()).expectNext(anime).expectComplete().verifyLater();
+        rows.tryEmitNext(anime);
+        rows.tryEmitComplete();
+
+        first.verify();
+        second.verify();
+        BDDMockito.verify(animeRepository, Mockito.times(2)).findAll();
+        Assertions.assertNull(meterRegistry.find(SingleFlight.COALESCED).tag("method", "findAll").counter());
+    }
+
+    @Test
+    @DisplayName("search returns the matches of the trimmed query with the default limit")
+    public void search_ReturnFluxOfAnime_WhenSuccessful() {
+        BDDMockito.when(animeRepository.search("slime", animeProperties.getSearch().getDefaultLimit())).thenReturn(Flux.just(anime));
+
+        StepVerifier.create(animeService.search(" slime ", null))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("search caps the limit to the configured maximum")
+    public void search_CapsLimit_WhenLimitIsGreaterThanMaximum() {
+        int maxLimit = animeProperties.getSearch().getMaxLimit();
+        BDDMockito.when(animeRepository.search("slime", maxLimit)).thenReturn(Flux.just(anime));
+
+        StepVerifier.create(animeService.search("slime", maxLimit * 2))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("search returns Flux error when the query is too short")
+    public void search_ReturnFluxError_WhenQueryIsTooShort() {
+        StepVerifier.create(animeService.search("sl", null))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).search(ArgumentMatchers.anyString(), ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("findPage returns a page with the next cursor when there are more animes")
+    public void findPage_ReturnPageWithNextCursor_WhenThereAreMoreAnimes() {
+        Anime second = anime.withId(2);
+        BDDMockito.when(animeRepository.findPage(0, 2)).thenReturn(Flux.just(anime, second));
+
+        StepVerifier.create(animeService.findPage(null, 1))
+                .expectSubscription()
+                .expectNext(new AnimePage(List.of(anime), anime.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findPage returns the last page without next cursor")
+    public void findPage_ReturnPageWithoutNextCursor_WhenIsTheLastPage() {
+        BDDMockito.when(animeRepository.findPage(1, 3)).thenReturn(Flux.empty());
+
+        StepVerifier.create(animeService.findPage(1, 2))
+                .expectSubscription()
+                .expectNext(new AnimePage(List.of(), null))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findPage caps the limit to the configured maximum")
+    public void findPage_CapsLimit_WhenLimitIsGreaterThanMaximum() {
+        int maxLimit = animeProperties.getPagination().getMaxLimit();
+        BDDMockito.when(animeRepository.findPage(0, maxLimit + 1)).thenReturn(Flux.just(anime));
+
+        StepVerifier.create(animeService.findPage(0, maxLimit * 2))
+                .expectSubscription()
+                .expectNext(new AnimePage(List.of(anime), null))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findPage returns Mono error when limit is not positive")
+    public void findPage_ReturnMonoError_WhenLimitIsNotPositive() {
+        StepVerifier.create(animeService.findPage(null, 0))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("stream returns a flux of anime read with the configured fetch size")
+    public void stream_ReturnFluxOfAnime_WhenSuccessful() {
+        int fetchSize = animeProperties.getPagination().getStreamFetchSize();
+        BDDMockito.when(animeRepository.streamAll(0, fetchSize)).thenReturn(Flux.just(anime));
+
+        StepVerifier.create(animeService.stream(null))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("findById returns Mono with anime when it exists")
     public void findById_ReturnMonoAnime_WhenSuccessful() {
@@ -82,6 +236,31 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("findById reads the anime from the cache after the first lookup")
+    public void findById_ReadsFromCache_WhenAnimeWasAlreadyLoaded() {
+        StepVerifier.create(animeService.findById(1).then(animeService.findById(1)))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.times(1)).findById(1);
+        Assertions.assertEquals(1, animeCache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("update invalidates the cached anime")
+    public void update_InvalidatesCache_WhenSuccessful() {
+        StepVerifier.create(animeService.findById(1)
+                        .then(animeService.update(AnimeCreator.createValidAnime()))
+                        .then(animeService.findById(1)))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.times(2)).findById(1);
+    }
+
     @Test
     @DisplayName("findById returns Mono error with anime does not exist")
     public void findById_ReturnMonoError_WhenEmptyMonoIsReturned() {
@@ -117,13 +296,95 @@ class AnimeServiceTest {
     public void saveAll_ReturnError_WhenContainsInvalidName() {
         Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
 
-        BDDMockito.when(animeRepository.saveAll(ArgumentMatchers.anyIterable())).thenReturn(Flux.just(anime, anime.withName("")));
-
         StepVerifier.create(animeService.saveAll(List.of(animeToBeSaved, animeToBeSaved.withName(""))))
                 .expectSubscription()
-                .expectNext(anime)
                 .expectError(ResponseStatusException.class)
                 .verify();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("saveAll applies the animes to the snapshot once the transaction completes and never after a rollback")
+    public void saveAll_AppliesSnapshot_OnlyWhenTransactionCompletes() {
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        BDDMockito.when(transactionalOperator.transactional(ArgumentMatchers.<Flux<Object>>any()))
+                .thenAnswer(invocation -> invocation.<Flux<Object>>getArgument(0)
+                        .doOnComplete(() -> BDDMockito.verify(animeSnapshot, Mockito.never()).apply(ArgumentMatchers.anyList())))
+                .thenReturn(Flux.error(new IllegalStateException("rolled back")));
+
+        StepVerifier.create(animeService.saveAll(List.of(animeToBeSaved, animeToBeSaved)))
+                .expectNext(anime, anime)
+                .verifyComplete();
+        StepVerifier.create(animeService.saveAll(List.of(animeToBeSaved, animeToBeSaved)))
+                .verifyError(IllegalStateException.class);
+
+        BDDMockito.verify(animeSnapshot).apply(List.of(anime, anime));
+        BDDMockito.verify(animeRepository, Mockito.never()).findUpdatedSince(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("saveAll writes the list of anime in chunks of the configured size")
+    public void saveAll_WritesInChunks_WhenListIsBiggerThanChunkSize() {
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        animeProperties.getBatch().setChunkSize(1);
+        BDDMockito.when(animeRepository.insertAll(List.of(animeToBeSaved))).thenReturn(Flux.just(anime));
+
+        StepVerifier.create(animeService.saveAll(List.of(animeToBeSaved, animeToBeSaved)))
+                .expectSubscription()
+                .expectNext(anime, anime)
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.times(2)).insertAll(List.of(animeToBeSaved));
+    }
+
+    @Test
+    @DisplayName("ingest saves a flux of anime in chunks and reports the progress of each one")
+    public void ingest_ReportsProgressPerChunk_WhenSuccessful() {
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        animeProperties.getBatch().setChunkSize(2);
+        BDDMockito.when(animeRepository.insertAll(List.of(animeToBeSaved))).thenReturn(Flux.just(anime));
+
+        StepVerifier.create(animeService.ingest(Flux.just(animeToBeSaved, animeToBeSaved, animeToBeSaved)))
+                .expectSubscription()
+                .expectNext(new AnimeBatchProgress(0, 2, 2), new AnimeBatchProgress(1, 1, 3))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ingest reports the chunks still being written when one fails, then fails without starting another chunk")
+    public void ingest_ReportsChunksInFlight_WhenChunkFails() {
+        Anime first = AnimeCreator.createAnimeToBeSaved();
+        Anime second = first.withName("Boku no Hero Academia");
+        Anime third = first.withName("Shingeki no Kyojin");
+        Sinks.Many<Anime> firstChunk = Sinks.many().unicast().onBackpressureBuffer();
+        animeProperties.getBatch().setChunkSize(1);
+        animeProperties.getBatch().setIngestConcurrency(2);
+        BDDMockito.when(animeRepository.insertAll(List.of(first))).thenReturn(firstChunk.asFlux());
+        BDDMockito.when(animeRepository.insertAll(List.of(second))).thenReturn(Flux.error(new IllegalStateException("rejected")));
+
+        StepVerifier.create(animeService.ingest(Flux.just(first, second, third)))
+                .then(() -> {
+                    firstChunk.tryEmitNext(anime);
+                    firstChunk.tryEmitComplete();
+                })
+                .expectNext(new AnimeBatchProgress(0, 1, 1))
+                .verifyError(IllegalStateException.class);
+
+        BDDMockito.verify(animeRepository, Mockito.never()).insertAll(List.of(third));
+    }
+
+    @Test
+    @DisplayName("ingest returns Flux error when the stream contains an anime with empty name")
+    public void ingest_ReturnError_WhenContainsInvalidName() {
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+
+        StepVerifier.create(animeService.ingest(Flux.just(animeToBeSaved, animeToBeSaved.withName(""))))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).insertAll(ArgumentMatchers.anyList());
     }
 
     @Test
@@ -137,11 +398,23 @@ class AnimeServiceTest {
     @Test
     @DisplayName("delete returns Mono error when anime does not exists")
     public void delete_ReturnMonoError_WhenEmptyMonoIsReturned() {
-        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyInt())).thenReturn(Mono.empty());
+        BDDMockito.when(animeRepository.deleteAnime(ArgumentMatchers.anyInt())).thenReturn(Mono.just(0));
         StepVerifier.create(animeService.delete(1))
                 .expectSubscription()
                 .expectError(ResponseStatusException.class)
                 .verify();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).findById(ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("delete returns conflict when the anime was updated since the expected version")
+    public void delete_ReturnConflict_WhenVersionIsStale() {
+        BDDMockito.when(animeRepository.deleteAnimeIfVersion(1, 0)).thenReturn(Mono.just(0));
+        StepVerifier.create(animeService.delete(1, 0L))
+                .expectSubscription()
+                .expectErrorMatches(error -> ((ResponseStatusException) error).getStatus() == HttpStatus.CONFLICT)
+                .verify();
     }
 
     @Test
@@ -152,14 +425,111 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("update writes the anime in a single statement without reading it first")
+    public void update_WritesInOneStatement_WhenThereIsNoVersion() {
+        Anime updated = AnimeCreator.createValidUpdateAnime().withVersion(null);
+        StepVerifier.create(animeService.update(updated))
+                .expectSubscription()
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository).updateName(1, updated.getName());
+        BDDMockito.verify(animeRepository, Mockito.never()).findById(ArgumentMatchers.anyInt());
+    }
+
     @Test
     @DisplayName("update returns Mono error when anime not exist")
     public void update_ReturnMonoError_WhenEmptyMonoIsReturned() {
-        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyInt())).thenReturn(Mono.empty());
+        BDDMockito.when(animeRepository.updateNameIfVersion(ArgumentMatchers.anyInt(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong())).thenReturn(Mono.just(0));
+        BDDMockito.when(animeRepository.existsById(ArgumentMatchers.anyInt())).thenReturn(Mono.just(false));
+        StepVerifier.create(animeService.update(AnimeCreator.createValidAnime()))
+                .expectSubscription()
+                .expectErrorMatches(error -> ((ResponseStatusException) error).getStatus() == HttpStatus.NOT_FOUND)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("update returns conflict when the anime was updated since the expected version")
+    public void update_ReturnConflict_WhenVersionIsStale() {
+        BDDMockito.when(animeRepository.updateNameIfVersion(ArgumentMatchers.anyInt(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong())).thenReturn(Mono.just(0));
         StepVerifier.create(animeService.update(AnimeCreator.createValidAnime()))
+                .expectSubscription()
+                .expectErrorMatches(error -> ((ResponseStatusException) error).getStatus() == HttpStatus.CONFLICT)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("findAll records a successful call and the animes emitted")
+    public void findAll_RecordsSuccessAndItems_WhenSuccessful() {
+        StepVerifier.create(animeService.findAll())
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        Assertions.assertEquals(1, meterRegistry.get(AnimeMetrics.CALLS)
+                .tags("method", "findAll", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(AnimeMetrics.ITEMS)
+                .tag("method", "findAll").counter().count());
+    }
+
+    @Test
+    @DisplayName("findById records a not found call when anime does not exist")
+    public void findById_RecordsNotFound_WhenEmptyMonoIsReturned() {
+        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyInt())).thenReturn(Mono.empty());
+
+        StepVerifier.create(animeService.findById(1))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        Assertions.assertEquals(1, meterRegistry.get(AnimeMetrics.CALLS)
+                .tags("method", "findById", "outcome", "not_found").timer().count());
+    }
+
+    @Test
+    @DisplayName("findVersion reads the version from the cached anime without a query")
+    public void findVersion_ReadsFromCache_WhenAnimeWasAlreadyLoaded() {
+        StepVerifier.create(animeService.findById(1).then(animeService.findVersion(1)))
+                .expectSubscription()
+                .expectNext(AnimeVersion.of(anime))
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).findVersionById(ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("findVersion queries only the version when the anime is not cached")
+    public void findVersion_QueriesVersion_WhenAnimeIsNotCached() {
+        StepVerifier.create(animeService.findVersion(1))
+                .expectSubscription()
+                .expectNext(AnimeVersion.of(anime))
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).findById(ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("findRecentListVersion queries the list version once and again only after a write")
+    public void findRecentListVersion_QueriesOnce_UntilAnimeIsUpdated() {
+        StepVerifier.create(animeService.findRecentListVersion()
+                        .then(animeService.findRecentListVersion())
+                        .then(animeService.update(AnimeCreator.createValidAnime()))
+                        .then(animeService.findRecentListVersion()))
+                .expectSubscription()
+                .expectNext(new AnimeListVersion(1, 1, 0))
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.times(2)).findListVersion();
+    }
+
+    @Test
+    @DisplayName("findVersion returns Mono error when anime does not exist")
+    public void findVersion_ReturnMonoError_WhenEmptyMonoIsReturned() {
+        BDDMockito.when(animeRepository.findVersionById(ArgumentMatchers.anyInt())).thenReturn(Mono.empty());
+        StepVerifier.create(animeService.findVersion(1))
                 .expectSubscription()
                 .expectError(ResponseStatusException.class)
                 .verify();
     }
 
-}
\ No newline at end of file
+}
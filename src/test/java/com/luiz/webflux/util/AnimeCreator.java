@@ -2,8 +2,12 @@ package com.luiz.webflux.util;
 
 import com.luiz.webflux.domain.Anime;
 
+import java.time.Instant;
+
 public class AnimeCreator {
 
+    public static final Instant UPDATED_AT = Instant.parse("2021-04-01T10:00:00Z");
+
     public static Anime createAnimeToBeSaved() {
         return Anime.builder()
                 .name("Tensei Shitara Slime Datta Ken")
@@ -14,6 +18,8 @@ public class AnimeCreator {
         return Anime.builder()
                 .id(1)
                 .name("Tensei Shitara Slime Datta Ken")
+                .version(0L)
+                .updatedAt(UPDATED_AT)
                 .build();
     }
 
@@ -21,6 +27,8 @@ public class AnimeCreator {
         return Anime.builder()
                 .id(1)
                 .name("Tensei Shitara Slime Datta Ken 2")
+                .version(0L)
+                .updatedAt(UPDATED_AT)
                 .build();
     }
 
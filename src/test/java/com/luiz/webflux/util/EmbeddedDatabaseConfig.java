@@ -0,0 +1,44 @@
+package com.luiz.webflux.util;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Creates the schema and the users on the in-process H2 database used instead of Postgres.
+ * Point spring.r2dbc.url to H2_URL and import this configuration.
+ */
+@TestConfiguration
+public class EmbeddedDatabaseConfig {
+
+    public static final String H2_URL = "r2dbc:h2:mem:///webflux_essentials;DB_CLOSE_DELAY=-1";
+    public static final String DATABASE_NAME_QUERY = "SELECT name FROM database_name";
+
+    /**
+     * Another in-process database, which answers DATABASE_NAME_QUERY with its name so tests can tell where a query ran
+     */
+    public static ConnectionFactory namedDatabase(String name) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + name + ";DB_CLOSE_DELAY=-1");
+        DatabaseClient client = DatabaseClient.create(connectionFactory);
+        client.sql("CREATE TABLE IF NOT EXISTS database_name (name VARCHAR(50))").then()
+                .then(client.sql("DELETE FROM database_name").then())
+                .then(client.sql("INSERT INTO database_name (name) VALUES (:name)").bind("name", name).then())
+                .block();
+        return connectionFactory;
+    }
+
+    @Bean
+    public ConnectionFactoryInitializer embeddedDatabaseInitializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(
+                new ClassPathResource("db/schema.sql"),
+                new ClassPathResource("db/data.sql")));
+        return initializer;
+    }
+}
@@ -0,0 +1,4 @@
+-- password for both users: devdojo
+MERGE INTO devdojo_user (name, username, password, authorities) KEY (username)
+VALUES ('Luiz', 'luiz', '{bcrypt}$2a$10$4FLq0aNUHe8hw4m.8hPTgO1ii3.nUUNW7lp7bYsuFvZ8451Y0N1r.', 'ROLE_USER,ROLE_ADMIN'),
+       ('David', 'david', '{bcrypt}$2a$10$4FLq0aNUHe8hw4m.8hPTgO1ii3.nUUNW7lp7bYsuFvZ8451Y0N1r.', 'ROLE_USER');